@@ -2,6 +2,7 @@ package dev.jorel.commandapi.nms;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -50,6 +51,7 @@ import org.bukkit.potion.PotionEffectType;
 
 import com.google.common.io.Files;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
 import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.arguments.ArgumentType;
 import com.mojang.brigadier.context.CommandContext;
@@ -431,8 +433,15 @@ public class NMS_1_14 implements NMS<CommandListenerWrapper> {
 
 	@Override
 	public void createDispatcherFile(File file, com.mojang.brigadier.CommandDispatcher<CommandListenerWrapper> dispatcher) throws IOException {
-		Files.write((new GsonBuilder()).setPrettyPrinting().create()
-				.toJson(ArgumentRegistry.a(dispatcher, dispatcher.getRoot())), file, StandardCharsets.UTF_8);
+		// The JSON tree is still built in memory, but it's written straight to the file instead of to one string first
+		try (Writer writer = Files.newWriter(file, StandardCharsets.UTF_8)) {
+			(new GsonBuilder()).setPrettyPrinting().create().toJson(getDispatcherJson(dispatcher), writer);
+		}
+	}
+
+	@Override
+	public JsonObject getDispatcherJson(com.mojang.brigadier.CommandDispatcher<CommandListenerWrapper> dispatcher) {
+		return ArgumentRegistry.a(dispatcher, dispatcher.getRoot());
 	}
 
 	@Override
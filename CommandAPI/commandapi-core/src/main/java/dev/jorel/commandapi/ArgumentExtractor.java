@@ -0,0 +1,133 @@
+package dev.jorel.commandapi;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+/**
+ * Extracts the value of a single argument from a command context. Extractors
+ * are created once when a command is registered with everything they need
+ * (node name, location type, entity selector etc.) already bound, so
+ * extracting an argument doesn't have to inspect the argument's type again.
+ *
+ * @param <CommandListenerWrapper> the NMS command source type
+ */
+@FunctionalInterface
+interface ArgumentExtractor<CommandListenerWrapper> {
+
+	/**
+	 * Extracts this argument's value from the provided command context
+	 *
+	 * @param cmdCtx the command context to read the argument from
+	 * @return the standard Bukkit type for this argument (as defined in NMS.java)
+	 * @throws CommandSyntaxException if the argument could not be parsed
+	 */
+	Object extract(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException;
+	
+	/**
+	 * Extracts this argument's value as an int. Brigadier stores primitive
+	 * arguments already boxed, so unboxing them here doesn't allocate
+	 * 
+	 * @param cmdCtx the command context to read the argument from
+	 * @return the value of this argument as an int
+	 * @throws CommandSyntaxException if the argument could not be parsed
+	 */
+	default int extractInt(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+		return ((Number) extract(cmdCtx)).intValue();
+	}
+	
+	/**
+	 * Extracts this argument's value as a long
+	 * 
+	 * @param cmdCtx the command context to read the argument from
+	 * @return the value of this argument as a long
+	 * @throws CommandSyntaxException if the argument could not be parsed
+	 */
+	default long extractLong(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+		return ((Number) extract(cmdCtx)).longValue();
+	}
+	
+	/**
+	 * Extracts this argument's value as a float
+	 * 
+	 * @param cmdCtx the command context to read the argument from
+	 * @return the value of this argument as a float
+	 * @throws CommandSyntaxException if the argument could not be parsed
+	 */
+	default float extractFloat(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+		return ((Number) extract(cmdCtx)).floatValue();
+	}
+	
+	/**
+	 * Extracts this argument's value as a double
+	 * 
+	 * @param cmdCtx the command context to read the argument from
+	 * @return the value of this argument as a double
+	 * @throws CommandSyntaxException if the argument could not be parsed
+	 */
+	default double extractDouble(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+		return ((Number) extract(cmdCtx)).doubleValue();
+	}
+	
+	/**
+	 * An extractor for arguments which NMS returns as a primitive int, such as
+	 * the TimeArgument, so reading them as an int doesn't box them
+	 */
+	@FunctionalInterface
+	interface IntExtractor<CommandListenerWrapper> extends ArgumentExtractor<CommandListenerWrapper> {
+		
+		@Override
+		int extractInt(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException;
+		
+		@Override
+		default Object extract(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+			return extractInt(cmdCtx);
+		}
+		
+		@Override
+		default long extractLong(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+			return extractInt(cmdCtx);
+		}
+		
+		@Override
+		default float extractFloat(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+			return extractInt(cmdCtx);
+		}
+		
+		@Override
+		default double extractDouble(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+			return extractInt(cmdCtx);
+		}
+	}
+	
+	/**
+	 * An extractor for arguments which NMS returns as a primitive float, such as
+	 * the AngleArgument, so reading them as a float doesn't box them
+	 */
+	@FunctionalInterface
+	interface FloatExtractor<CommandListenerWrapper> extends ArgumentExtractor<CommandListenerWrapper> {
+		
+		@Override
+		float extractFloat(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException;
+		
+		@Override
+		default Object extract(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+			return extractFloat(cmdCtx);
+		}
+		
+		@Override
+		default int extractInt(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+			return (int) extractFloat(cmdCtx);
+		}
+		
+		@Override
+		default long extractLong(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+			return (long) extractFloat(cmdCtx);
+		}
+		
+		@Override
+		default double extractDouble(CommandContext<CommandListenerWrapper> cmdCtx) throws CommandSyntaxException {
+			return extractFloat(cmdCtx);
+		}
+	}
+
+}
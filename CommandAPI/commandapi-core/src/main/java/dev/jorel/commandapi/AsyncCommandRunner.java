@@ -0,0 +1,155 @@
+package dev.jorel.commandapi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import com.mojang.brigadier.LiteralMessage;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+import dev.jorel.commandapi.executors.IExecutorAsync;
+
+/**
+ * Runs asynchronous command executors on the CommandAPI's
+ * {@link AsyncCommandScheduler}, and moves work back onto the server thread when it needs to use the
+ * Bukkit API
+ */
+class AsyncCommandRunner {
+	
+	private static AsyncCommandScheduler scheduler;
+	
+	private AsyncCommandRunner() {}
+	
+	static synchronized void setScheduler(AsyncCommandScheduler scheduler) {
+		AsyncCommandRunner.scheduler = scheduler;
+	}
+	
+	private static synchronized AsyncCommandScheduler getScheduler() {
+		if(scheduler == null) {
+			scheduler = AsyncCommandSchedulers.createDefault();
+		}
+		return scheduler;
+	}
+	
+	/**
+	 * Runs an asynchronous executor off the server thread. If the executor fails
+	 * or doesn't finish within the configured timeout, the sender is told so on
+	 * the server thread.
+	 * 
+	 * @param sender   the command sender for this command
+	 * @param executor the executor to run
+	 * @param args     the arguments provided to this command, already parsed on the server thread
+	 * @param permits  the command's concurrency limit, which has already been
+	 *                 acquired and is released once the executor has finished, or
+	 *                 null if the command has no limit
+	 * @return a future which is completed on the server thread with the result of the executor
+	 * @throws WrapperCommandSyntaxException if the scheduler is too busy to run the executor
+	 */
+	static CompletableFuture<Integer> submit(CommandSender sender, IExecutorAsync<?> executor, Object[] args,
+			Semaphore permits) throws WrapperCommandSyntaxException {
+		CompletableFuture<Integer> result = new CompletableFuture<>();
+		Future<?> task;
+		try {
+			task = getScheduler().submit(() -> {
+				try {
+					int value = executor.executeWith(sender, args);
+					runSync(() -> result.complete(value));
+				} catch (Throwable e) {
+					runSync(() -> result.completeExceptionally(e));
+				} finally {
+					if(permits != null) {
+						permits.release();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			if(permits != null) {
+				permits.release();
+			}
+			throw new WrapperCommandSyntaxException(new SimpleCommandExceptionType(
+					new LiteralMessage("The server is too busy to run this command right now")).create());
+		}
+		
+		long timeout = CommandAPI.getConfiguration().getAsyncExecutorTimeout();
+		Plugin plugin = CommandAPI.getPlugin();
+		if(timeout > 0 && plugin != null) {
+			// Converted from milliseconds to ticks, rounding up
+			Bukkit.getScheduler().runTaskLater(plugin, () -> {
+				if(result.completeExceptionally(new TimeoutException())) {
+					task.cancel(true);
+				}
+			}, Math.max(1L, (timeout + 49L) / 50L));
+		}
+		
+		result.whenComplete((value, exception) -> {
+			if(exception != null) {
+				report(sender, exception, timeout);
+			}
+		});
+		return result;
+	}
+	
+	private static void report(CommandSender sender, Throwable exception, long timeout) {
+		if(exception instanceof CompletionException && exception.getCause() != null) {
+			exception = exception.getCause();
+		}
+		if(exception instanceof WrapperCommandSyntaxException) {
+			sender.sendMessage(ChatColor.RED + ((WrapperCommandSyntaxException) exception).getException().getMessage());
+		} else if(exception instanceof TimeoutException) {
+			sender.sendMessage(ChatColor.RED + "This command did not finish within " + timeout + "ms");
+		} else {
+			exception.printStackTrace(System.out);
+			sender.sendMessage(ChatColor.RED + "An internal error occurred while running this command");
+		}
+	}
+	
+	/**
+	 * Runs a task on the server thread. If this is called from the server thread,
+	 * the task is run immediately
+	 * 
+	 * @param task the task to run
+	 * @return a future which is completed once the task has run
+	 */
+	static CompletableFuture<Void> runSync(Runnable task) {
+		return callSync(() -> {
+			task.run();
+			return null;
+		});
+	}
+	
+	/**
+	 * Computes a value on the server thread. If this is called from the server
+	 * thread, the value is computed immediately
+	 * 
+	 * @param <T>      the type of the value
+	 * @param supplier the function which computes the value
+	 * @return a future which is completed with the computed value
+	 */
+	static <T> CompletableFuture<T> callSync(Supplier<T> supplier) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Runnable task = () -> {
+			try {
+				future.complete(supplier.get());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		};
+		if(Bukkit.isPrimaryThread()) {
+			task.run();
+		} else {
+			Bukkit.getScheduler().runTask(CommandAPI.getPlugin(), task);
+		}
+		return future;
+	}
+	
+}
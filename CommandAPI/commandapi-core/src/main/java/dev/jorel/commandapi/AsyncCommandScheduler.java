@@ -0,0 +1,26 @@
+package dev.jorel.commandapi;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the bodies of asynchronous command executors off the server thread. An
+ * AsyncCommandScheduler can be set using
+ * {@link CommandAPI#setAsyncScheduler(AsyncCommandScheduler)}, and a few
+ * common implementations are provided by {@link AsyncCommandSchedulers}
+ */
+@FunctionalInterface
+public interface AsyncCommandScheduler {
+
+	/**
+	 * Schedules a task to be run off the server thread
+	 * 
+	 * @param task the task to run
+	 * @return a future representing the task, which is cancelled if the task
+	 *         takes too long
+	 * @throws RejectedExecutionException if this scheduler can't accept any more
+	 *                                    tasks
+	 */
+	Future<?> submit(Runnable task) throws RejectedExecutionException;
+
+}
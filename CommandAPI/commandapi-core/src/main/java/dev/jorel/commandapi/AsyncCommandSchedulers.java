@@ -0,0 +1,128 @@
+package dev.jorel.commandapi;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory methods for the {@link AsyncCommandScheduler}s that the CommandAPI
+ * provides
+ */
+public final class AsyncCommandSchedulers {
+	
+	private static final int DEFAULT_QUEUE_SIZE = 1024;
+	
+	// Executors.newVirtualThreadPerTaskExecutor(), or null if the JVM doesn't support virtual threads
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+	
+	private AsyncCommandSchedulers() {}
+	
+	/**
+	 * Creates a scheduler which runs tasks using the provided executor service
+	 * 
+	 * @param executorService the executor service to run tasks on
+	 * @return a scheduler which runs tasks using the provided executor service
+	 */
+	public static AsyncCommandScheduler fromExecutorService(ExecutorService executorService) {
+		return executorService::submit;
+	}
+	
+	/**
+	 * Returns whether the JVM that the server is running on supports virtual
+	 * threads
+	 * 
+	 * @return true if {@link #virtualThreadPerTask()} can be used
+	 */
+	public static boolean supportsVirtualThreads() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+	
+	/**
+	 * Creates a scheduler which runs each task on its own virtual thread. This is
+	 * well suited for command bodies which block on I/O, such as database
+	 * queries, but requires a JVM which supports virtual threads
+	 * 
+	 * @return a scheduler which runs each task on its own virtual thread
+	 * @throws UnsupportedOperationException if the JVM doesn't support virtual
+	 *                                       threads
+	 */
+	public static AsyncCommandScheduler virtualThreadPerTask() {
+		ExecutorService executorService = newVirtualThreadPerTaskExecutor();
+		if(executorService == null) {
+			throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+		}
+		return fromExecutorService(executorService);
+	}
+	
+	/**
+	 * Creates a scheduler which runs tasks on a fixed number of daemon platform
+	 * threads. Once every thread is busy and the queue is full, further tasks are
+	 * rejected rather than queued without limit
+	 * 
+	 * @param threads   the maximum number of threads to run tasks on
+	 * @param queueSize the maximum number of tasks that can wait for a thread
+	 * @return a scheduler which runs tasks on a bounded pool of platform threads
+	 */
+	public static AsyncCommandScheduler boundedPool(int threads, int queueSize) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(queueSize), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+					
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "CommandAPI Async Executor #" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return fromExecutorService(executor);
+	}
+	
+	/**
+	 * Creates the scheduler that the CommandAPI uses by default. This runs each
+	 * task on its own virtual thread if the JVM supports virtual threads, and
+	 * otherwise uses a bounded pool of platform threads
+	 * 
+	 * @return the default scheduler for asynchronous command executors
+	 */
+	public static AsyncCommandScheduler createDefault() {
+		ExecutorService executorService = newVirtualThreadPerTaskExecutor();
+		if(executorService != null) {
+			return fromExecutorService(executorService);
+		} else {
+			return boundedPool(Math.max(2, Runtime.getRuntime().availableProcessors()), DEFAULT_QUEUE_SIZE);
+		}
+	}
+	
+	// Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively, so the CommandAPI still runs on Java 8
+	private static Method findVirtualThreadPerTaskExecutor() {
+		// Virtual threads are a preview feature before Java 21, which is disabled by default
+		String version = System.getProperty("java.specification.version", "1.8");
+		try {
+			if(version.startsWith("1.") || Integer.parseInt(version) < 21) {
+				return null;
+			}
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException | RuntimeException e) {
+			return null;
+		}
+	}
+	
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		if(NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+			return null;
+		}
+		try {
+			return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+	
+}
@@ -0,0 +1,110 @@
+package dev.jorel.commandapi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.bukkit.command.CommandSender;
+
+import dev.jorel.commandapi.arguments.Argument;
+
+/**
+ * Computes an argument's asynchronously overridden suggestions. If the
+ * suggestions don't complete within the argument's timeout, or fail, the last
+ * suggestions computed for the same sender are used instead (if the argument
+ * allows stale suggestions), or otherwise no suggestions.
+ */
+class AsyncSuggestionProvider {
+	
+	// The number of senders whose last suggestions are remembered for each argument
+	private static final int MAX_STALE_ENTRIES = 256;
+	
+	private static final IStringTooltip[] NO_SUGGESTIONS = new IStringTooltip[0];
+	
+	private final BiFunction<CommandSender, Object[], CompletableFuture<IStringTooltip[]>> provider;
+	private final long timeoutNanos;
+	private final Map<String, IStringTooltip[]> stale;
+	
+	AsyncSuggestionProvider(Argument argument) {
+		this.provider = SuggestionCache.wrapAsync(argument, argument.getOverriddenSuggestionsAsync().get());
+		this.timeoutNanos = argument.getAsyncSuggestionsTimeout().toNanos();
+		if(argument.usesStaleAsyncSuggestions()) {
+			this.stale = Collections.synchronizedMap(new LinkedHashMap<String, IStringTooltip[]>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, IStringTooltip[]> eldest) {
+					return size() > MAX_STALE_ENTRIES;
+				}
+			});
+		} else {
+			this.stale = null;
+		}
+	}
+	
+	/**
+	 * Computes the suggestions for a sender
+	 * 
+	 * @param sender       the sender to compute suggestions for
+	 * @param previousArgs the previously declared arguments
+	 * @return a future which completes with the suggestions, or the fallback
+	 *         suggestions once the timeout has passed
+	 */
+	CompletableFuture<IStringTooltip[]> getSuggestions(CommandSender sender, Object[] previousArgs) {
+		String key = sender == null ? "" : sender.getName();
+		CompletableFuture<IStringTooltip[]> source;
+		try {
+			source = provider.apply(sender, previousArgs);
+		} catch (RuntimeException e) {
+			e.printStackTrace(System.out);
+			return CompletableFuture.completedFuture(fallback(key));
+		}
+		
+		CompletableFuture<IStringTooltip[]> result = new CompletableFuture<>();
+		source.whenComplete((suggestions, exception) -> {
+			if(exception == null && suggestions != null) {
+				if(stale != null) {
+					stale.put(key, suggestions);
+				}
+				result.complete(suggestions);
+			} else {
+				result.complete(fallback(key));
+			}
+		});
+		
+		if(!result.isDone()) {
+			ScheduledFuture<?> timeout = Timer.INSTANCE.schedule(() -> result.complete(fallback(key)), timeoutNanos, TimeUnit.NANOSECONDS);
+			result.whenComplete((suggestions, exception) -> timeout.cancel(false));
+		}
+		return result;
+	}
+	
+	private IStringTooltip[] fallback(String key) {
+		if(stale != null) {
+			IStringTooltip[] suggestions = stale.get(key);
+			if(suggestions != null) {
+				return suggestions;
+			}
+		}
+		return NO_SUGGESTIONS;
+	}
+	
+	// Lazily creates the thread which times out suggestions, the first time it's needed
+	private static class Timer {
+		static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "CommandAPI Suggestion Timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		static {
+			INSTANCE.setRemoveOnCancelPolicy(true);
+		}
+	}
+	
+}
@@ -80,9 +80,10 @@ public abstract class Brigadier {
 	 * @return a RedirectModifier that encapsulates the provided predicate
 	 */
 	public static RedirectModifier fromPredicate(BiPredicate<CommandSender, Object[]> predicate, List<Argument> args) {
+		ArgumentExtractor[] extractors = CommandAPIHandler.getInstance().compileArguments(args);
 		return cmdCtx -> {
 			if (predicate.test(CommandAPIHandler.getInstance().NMS.getSenderForCommand(cmdCtx, false),
-					CommandAPIHandler.getInstance().argsToObjectArr(cmdCtx, args))) {
+					CommandAPIHandler.getInstance().argsToObjectArr(cmdCtx, extractors))) {
 				return Collections.singleton(cmdCtx.getSource());
 			} else {
 				return Collections.emptyList();
@@ -1,56 +1,100 @@
 package dev.jorel.commandapi;
 
-import static java.util.Arrays.asList;
-import static java.util.Collections.emptyList;
-import static java.util.Optional.of;
-import static java.util.stream.Collectors.toList;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.ListIterator;
-
 /**
- * A class to compute the cartesian product of a number of lists. From Rosetta
- * Code:
- * https://rosettacode.org/wiki/Cartesian_product_of_two_or_more_lists#Java
+ * A class to iterate over the cartesian product of a number of String arrays.
+ * Rather than materializing the product, combinations are produced one at a
+ * time like an odometer, and each combination is written straight into a
+ * single reused String[]
  */
 public class CartesianProduct {
 
-	public static List<?> product(List<?>... a) {
-		if (a.length >= 2) {
-			List<?> product = a[0];
-			for (int i = 1; i < a.length; i++) {
-				product = product(product, a[i]);
+	private final String[][] choices;
+	private final String[] target;
+	private final int[] indices;
+	private boolean started;
+	private boolean exhausted;
+
+	/**
+	 * Creates an iterator over the cartesian product of the provided choices.
+	 *
+	 * @param choices the possible values for each position of the product. A
+	 *                <code>null</code> entry represents a position which is left
+	 *                untouched in the target array
+	 * @param target  the array that each combination is written into. Positions
+	 *                beyond the end of target are ignored
+	 */
+	public CartesianProduct(String[][] choices, String[] target) {
+		this.choices = choices;
+		this.target = target;
+		this.indices = new int[choices.length];
+		this.started = false;
+		this.exhausted = false;
+		for (String[] choice : choices) {
+			if (choice != null && choice.length == 0) {
+				this.exhausted = true;
 			}
-			return product;
 		}
-
-		return emptyList();
 	}
 
-	private static <A, B> List<?> product(List<A> a, List<B> b) {
-		return of(a.stream().map(e1 -> of(b.stream().map(e2 -> asList(e1, e2)).collect(toList())).orElse(emptyList()))
-				.flatMap(List::stream).collect(toList())).orElse(emptyList());
-	}
-	
-	public static void flatten(List<List<?>> list) {
-		ListIterator<List<?>> listIterator = list.listIterator();
-		while(listIterator.hasNext()) {
-			List<?> innerList = listIterator.next();
-			listIterator.set(flattenL(innerList));
+	/**
+	 * Returns the number of combinations in this product, saturating at
+	 * <code>Long.MAX_VALUE</code>
+	 *
+	 * @return the number of combinations in this product
+	 */
+	public long size() {
+		long size = 1;
+		for (String[] choice : choices) {
+			if (choice != null) {
+				if (choice.length == 0) {
+					return 0;
+				}
+				if (size > Long.MAX_VALUE / choice.length) {
+					return Long.MAX_VALUE;
+				}
+				size *= choice.length;
+			}
 		}
+		return size;
 	}
-	
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	public static List<?> flattenL(List<?> list) {
-		List returnVal = new ArrayList<>();
-		for(Object o : list) {
-			if(o instanceof List) {
-				returnVal.addAll(flattenL((List) o));
-			} else {
-				returnVal.add(o);
+
+	/**
+	 * Advances to the next combination and writes it into the target array
+	 *
+	 * @return true if a combination was written, false if every combination has
+	 *         already been produced
+	 */
+	public boolean next() {
+		if (exhausted) {
+			return false;
+		}
+		if (!started) {
+			started = true;
+			for (int i = 0; i < choices.length; i++) {
+				write(i);
 			}
+			return true;
+		}
+
+		// Turn the rightmost wheel, carrying over into the wheels to its left
+		for (int i = choices.length - 1; i >= 0; i--) {
+			if (choices[i] == null) {
+				continue;
+			}
+			if (++indices[i] < choices[i].length) {
+				write(i);
+				return true;
+			}
+			indices[i] = 0;
+			write(i);
+		}
+		exhausted = true;
+		return false;
+	}
+
+	private void write(int position) {
+		if (choices[position] != null && position < target.length) {
+			target[position] = choices[position][indices[position]];
 		}
-		return returnVal;
 	}
-}
\ No newline at end of file
+}
@@ -2,6 +2,9 @@ package dev.jorel.commandapi;
 
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
@@ -29,12 +32,17 @@ public abstract class CommandAPI {
 	static Config config;
 	static File dispatcherFile;
 	static Logger logger;
+	private static Plugin plugin;
 	private static boolean loaded = false;
 
 	static Config getConfiguration() {
 		return config;
 	}
 	
+	static Plugin getPlugin() {
+		return plugin;
+	}
+	
 	static File getDispatcherFile() {
 		return dispatcherFile;
 	}
@@ -110,6 +118,8 @@ public abstract class CommandAPI {
 	 * @param plugin the plugin that this onEnable method is called from
 	 */
 	public static void onEnable(Plugin plugin) {
+		CommandAPI.plugin = plugin;
+		
 		//Prevent command registration after server has loaded
 		Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, () -> {
 			canRegister = false;
@@ -122,16 +132,28 @@ public abstract class CommandAPI {
 			} catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e) {
 				e.printStackTrace();
 			}
+			DatapackSuggestions.invalidate();
+			
+			//Produce the command_registration.json file for debug purposes, now that every command is registered
+			if(config.willCreateDispatcherFile()) {
+				exportDispatcherFile(getDispatcherFile()).whenComplete((result, throwable) -> {
+					if(throwable != null) {
+						getLog().log(Level.WARNING, "Failed to write " + getDispatcherFile().getName(), throwable);
+					}
+				});
+			}
 		}, 0L);
 		
 		final Listener playerJoinListener = new Listener() {
 			@EventHandler(priority = EventPriority.MONITOR)
 			public void onPlayerJoin(PlayerJoinEvent e) {
-				CommandAPIHandler.getInstance().getNMS().resendPackets(e.getPlayer());
+				CommandAPIHandler.getInstance().resendPackets(e.getPlayer());
 			}
 		};
         
 		Bukkit.getServer().getPluginManager().registerEvents(playerJoinListener, plugin);  
+		PlayerNameIndex.enable(plugin);
+		DatapackSuggestions.enable(plugin);
 	}
 	
 	/**
@@ -139,13 +161,14 @@ public abstract class CommandAPI {
 	 * @param player the player whos requirements to update
 	 */
 	public static void updateRequirements(Player player) {
-		CommandAPIHandler.getInstance().getNMS().resendPackets(player);
+		CommandAPIHandler.getInstance().resendPackets(player);
 	}
 	
 	/**
 	 * Reloads all of the datapacks that are on the server. This should be used if
 	 * you change a datapack and want to reload a server. Execute this method after
-	 * running /minecraft:reload, NOT before.
+	 * running /minecraft:reload, NOT before. This also refreshes the suggestions
+	 * of function, advancement and loot table arguments.
 	 */
 	public static void reloadDatapacks() {
 		try {
@@ -153,6 +176,63 @@ public abstract class CommandAPI {
 		} catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e) {
 			e.printStackTrace();
 		}
+		DatapackSuggestions.invalidate();
+	}
+	
+	/**
+	 * Writes a JSON file that describes every command that is registered on the
+	 * server, in the same format as the <code>command_registration.json</code>
+	 * file. The JSON is built on the server thread and written to the file on an
+	 * asynchronous thread. This can only be used after the CommandAPI has been
+	 * enabled
+	 * @param file the file to write to
+	 * @return a future which is completed once the file has been written
+	 */
+	public static CompletableFuture<Void> exportDispatcherFile(File file) {
+		return CommandAPIHandler.getInstance().exportDispatcherFile(file);
+	}
+	
+	/**
+	 * Sets the executor service that asynchronous command executors are run on.
+	 * This is the equivalent of running
+	 * <code>CommandAPI.setAsyncScheduler(AsyncCommandSchedulers.fromExecutorService(executorService))</code>
+	 * @param executorService the executor service to run asynchronous command executors on
+	 */
+	public static void setAsyncExecutor(ExecutorService executorService) {
+		AsyncCommandRunner.setScheduler(AsyncCommandSchedulers.fromExecutorService(executorService));
+	}
+	
+	/**
+	 * Sets the scheduler that asynchronous command executors are run on. By
+	 * default, asynchronous command executors are run on virtual threads if the
+	 * JVM supports them, and otherwise on a bounded pool of daemon threads
+	 * @param scheduler the scheduler to run asynchronous command executors on
+	 */
+	public static void setAsyncScheduler(AsyncCommandScheduler scheduler) {
+		AsyncCommandRunner.setScheduler(scheduler);
+	}
+	
+	/**
+	 * Runs a task on the server thread. This should be used by asynchronous
+	 * command executors to access the Bukkit API. If this is called from the
+	 * server thread, the task is run immediately
+	 * @param task the task to run
+	 * @return a future which is completed once the task has run
+	 */
+	public static CompletableFuture<Void> runSync(Runnable task) {
+		return AsyncCommandRunner.runSync(task);
+	}
+	
+	/**
+	 * Computes a value on the server thread. This should be used by asynchronous
+	 * command executors to access the Bukkit API. If this is called from the
+	 * server thread, the value is computed immediately
+	 * @param <T> the type of the value
+	 * @param supplier the function which computes the value
+	 * @return a future which is completed with the computed value
+	 */
+	public static <T> CompletableFuture<T> callSync(Supplier<T> supplier) {
+		return AsyncCommandRunner.callSync(supplier);
 	}
 	
 	/**
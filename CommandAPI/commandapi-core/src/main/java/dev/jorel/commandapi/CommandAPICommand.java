@@ -3,15 +3,22 @@ package dev.jorel.commandapi;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 
 import org.bukkit.command.CommandSender;
 
 import dev.jorel.commandapi.arguments.Argument;
 import dev.jorel.commandapi.arguments.IGreedyArgument;
-import dev.jorel.commandapi.arguments.MultiLiteralArgument;
 import dev.jorel.commandapi.exceptions.GreedyArgumentException;
 import dev.jorel.commandapi.exceptions.InvalidCommandNameException;
+import dev.jorel.commandapi.executors.AsyncCommandBlockCommandExecutor;
+import dev.jorel.commandapi.executors.AsyncCommandExecutor;
+import dev.jorel.commandapi.executors.AsyncConsoleCommandExecutor;
+import dev.jorel.commandapi.executors.AsyncEntityCommandExecutor;
+import dev.jorel.commandapi.executors.AsyncNativeCommandExecutor;
+import dev.jorel.commandapi.executors.AsyncPlayerCommandExecutor;
+import dev.jorel.commandapi.executors.AsyncProxyCommandExecutor;
 import dev.jorel.commandapi.executors.CommandBlockCommandExecutor;
 import dev.jorel.commandapi.executors.CommandBlockResultingCommandExecutor;
 import dev.jorel.commandapi.executors.CommandExecutor;
@@ -19,6 +26,20 @@ import dev.jorel.commandapi.executors.ConsoleCommandExecutor;
 import dev.jorel.commandapi.executors.ConsoleResultingCommandExecutor;
 import dev.jorel.commandapi.executors.EntityCommandExecutor;
 import dev.jorel.commandapi.executors.EntityResultingCommandExecutor;
+import dev.jorel.commandapi.executors.LazyCommandBlockCommandExecutor;
+import dev.jorel.commandapi.executors.LazyCommandBlockResultingCommandExecutor;
+import dev.jorel.commandapi.executors.LazyCommandExecutor;
+import dev.jorel.commandapi.executors.LazyConsoleCommandExecutor;
+import dev.jorel.commandapi.executors.LazyConsoleResultingCommandExecutor;
+import dev.jorel.commandapi.executors.LazyEntityCommandExecutor;
+import dev.jorel.commandapi.executors.LazyEntityResultingCommandExecutor;
+import dev.jorel.commandapi.executors.LazyNativeCommandExecutor;
+import dev.jorel.commandapi.executors.LazyNativeResultingCommandExecutor;
+import dev.jorel.commandapi.executors.LazyPlayerCommandExecutor;
+import dev.jorel.commandapi.executors.LazyPlayerResultingCommandExecutor;
+import dev.jorel.commandapi.executors.LazyProxyCommandExecutor;
+import dev.jorel.commandapi.executors.LazyProxyResultingCommandExecutor;
+import dev.jorel.commandapi.executors.LazyResultingCommandExecutor;
 import dev.jorel.commandapi.executors.NativeCommandExecutor;
 import dev.jorel.commandapi.executors.NativeResultingCommandExecutor;
 import dev.jorel.commandapi.executors.PlayerCommandExecutor;
@@ -144,6 +165,18 @@ public class CommandAPICommand {
 		return this;
 	}
 	
+	/**
+	 * Limits how many times this command's asynchronous executors can be running
+	 * at once. While the limit is reached, running the command fails instead of
+	 * queueing more work
+	 * @param limit the maximum number of concurrent executions, or a value less than 1 for no limit
+	 * @return this command builder
+	 */
+	public CommandAPICommand withAsyncConcurrencyLimit(int limit) {
+		this.executor.setAsyncConcurrencyLimit(limit);
+		return this;
+	}
+	
 	// Regular command executor 
 	
 	/**
@@ -296,6 +329,232 @@ public class CommandAPICommand {
 		return this;
 	}
 	
+	// Lazy command executors
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(CommandSender, CommandArguments) -&gt; ()</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesLazy(LazyCommandExecutor executor) {
+		this.executor.addNormalExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(CommandSender, CommandArguments) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesLazy(LazyResultingCommandExecutor executor) {
+		this.executor.addResultingExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(Player, CommandArguments) -&gt; ()</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesPlayerLazy(LazyPlayerCommandExecutor executor) {
+		this.executor.addNormalExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(Player, CommandArguments) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesPlayerLazy(LazyPlayerResultingCommandExecutor executor) {
+		this.executor.addResultingExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(Entity, CommandArguments) -&gt; ()</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesEntityLazy(LazyEntityCommandExecutor executor) {
+		this.executor.addNormalExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(Entity, CommandArguments) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesEntityLazy(LazyEntityResultingCommandExecutor executor) {
+		this.executor.addResultingExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(NativeProxyCommandSender, CommandArguments) -&gt; ()</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesProxyLazy(LazyProxyCommandExecutor executor) {
+		this.executor.addNormalExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(NativeProxyCommandSender, CommandArguments) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesProxyLazy(LazyProxyResultingCommandExecutor executor) {
+		this.executor.addResultingExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(BlockCommandSender, CommandArguments) -&gt; ()</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesCommandBlockLazy(LazyCommandBlockCommandExecutor executor) {
+		this.executor.addNormalExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(BlockCommandSender, CommandArguments) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesCommandBlockLazy(LazyCommandBlockResultingCommandExecutor executor) {
+		this.executor.addResultingExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(ConsoleCommandSender, CommandArguments) -&gt; ()</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesConsoleLazy(LazyConsoleCommandExecutor executor) {
+		this.executor.addNormalExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(ConsoleCommandSender, CommandArguments) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesConsoleLazy(LazyConsoleResultingCommandExecutor executor) {
+		this.executor.addResultingExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(NativeProxyCommandSender, CommandArguments) -&gt; ()</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesNativeLazy(LazyNativeCommandExecutor executor) {
+		this.executor.addNormalExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which parses each argument when it is first read
+	 * @param executor A lambda of type <code>(NativeProxyCommandSender, CommandArguments) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesNativeLazy(LazyNativeResultingCommandExecutor executor) {
+		this.executor.addResultingExecutor(executor);
+		return this;
+	}
+	
+	// Asynchronous command executors
+	
+	/**
+	 * Adds an executor to the current command builder, which is run off the server thread
+	 * @param executor A lambda of type <code>(CommandSender, Object[]) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesAsync(AsyncCommandExecutor executor) {
+		this.executor.addAsyncExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which is run off the server thread
+	 * @param executor A lambda of type <code>(Player, Object[]) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesPlayerAsync(AsyncPlayerCommandExecutor executor) {
+		this.executor.addAsyncExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which is run off the server thread
+	 * @param executor A lambda of type <code>(Entity, Object[]) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesEntityAsync(AsyncEntityCommandExecutor executor) {
+		this.executor.addAsyncExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which is run off the server thread
+	 * @param executor A lambda of type <code>(NativeProxyCommandSender, Object[]) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesProxyAsync(AsyncProxyCommandExecutor executor) {
+		this.executor.addAsyncExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which is run off the server thread
+	 * @param executor A lambda of type <code>(BlockCommandSender, Object[]) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesCommandBlockAsync(AsyncCommandBlockCommandExecutor executor) {
+		this.executor.addAsyncExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which is run off the server thread
+	 * @param executor A lambda of type <code>(ConsoleCommandSender, Object[]) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesConsoleAsync(AsyncConsoleCommandExecutor executor) {
+		this.executor.addAsyncExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder, which is run off the server thread
+	 * @param executor A lambda of type <code>(NativeProxyCommandSender, Object[]) -&gt; int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesNativeAsync(AsyncNativeCommandExecutor executor) {
+		this.executor.addAsyncExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Sets the function which receives the result of this command's asynchronous
+	 * executors. It is called on the server thread once an asynchronous executor
+	 * has finished successfully, since the command itself returns before then
+	 * @param handler A lambda of type <code>(CommandSender, Integer) -&gt; ()</code> that receives the sender and the result
+	 * @return this command builder
+	 */
+	public CommandAPICommand withAsyncResultHandler(BiConsumer<CommandSender, Integer> handler) {
+		this.executor.setAsyncResultHandler(handler);
+		return this;
+	}
+	
 	/**
 	 * Returns the name of this command
 	 * @return the name of this command
@@ -412,31 +671,38 @@ public class CommandAPICommand {
 		this.isConverted = isConverted;
 	}
 	
-	//Expand subcommands into arguments
-	private void flatten(CommandAPICommand rootCommand, List<Argument> prevArguments, CommandAPICommand subcommand) {
-		
-		String[] literals = new String[subcommand.aliases.length + 1];
-		literals[0] = subcommand.commandName;
-		System.arraycopy(subcommand.aliases, 0, literals, 1, subcommand.aliases.length);
-		MultiLiteralArgument literal = (MultiLiteralArgument) new MultiLiteralArgument(literals)
-			.withPermission(subcommand.permission)
-			.withRequirement(subcommand.requirements)
-			.setListed(false);
-		
-		prevArguments.add(literal);
+	/**
+	 * Checks that a greedy argument can only be the last argument, and assigns a
+	 * command's permission to the arguments that don't already have one
+	 * @param args the arguments to check
+	 * @param permission the permission of the command that the arguments are registered under
+	 * @return a copy of the arguments
+	 * @throws GreedyArgumentException if a greedy argument isn't the last argument
+	 */
+	static List<Argument> checkArguments(List<Argument> args, CommandPermission permission) throws GreedyArgumentException {
+		//Make a local copy of args to deal with
+		List<Argument> copyOfArgs = args == null ? new ArrayList<>() : new ArrayList<>(args);
 		
-		if(!subcommand.executor.isEmpty()) {	
-			rootCommand.args = prevArguments;
-			rootCommand.withArguments(subcommand.args);
-			rootCommand.executor = subcommand.executor;
+		//if args contains a GreedyString && args.getLast != GreedyString
+		long numGreedyArgs = copyOfArgs.stream().filter(arg -> arg instanceof IGreedyArgument).count();
+		if(numGreedyArgs >= 1) {
+			//A GreedyString has been found
+			if(!(copyOfArgs.toArray()[copyOfArgs.size() - 1] instanceof IGreedyArgument)) {
+				throw new GreedyArgumentException();
+			}
 			
-			rootCommand.subcommands = new ArrayList<>();
-			rootCommand.register();
+			if(numGreedyArgs > 1) {
+				throw new GreedyArgumentException();
+			}
 		}
 		
-		for(CommandAPICommand subsubcommand : new ArrayList<>(subcommand.subcommands)) {
-			flatten(rootCommand, new ArrayList<>(prevArguments), subsubcommand);
+		//Assign the command's permissions to arguments if the arguments don't already have one
+		for(Argument argument : copyOfArgs) {
+			if(argument.getArgumentPermission() == null) {
+				argument.withPermission(permission);
+			}
 		}
+		return copyOfArgs;
 	}
 	
 	/**
@@ -453,37 +719,13 @@ public class CommandAPICommand {
 				throw new InvalidCommandNameException(commandName);
 			}
 			
-			//Make a local copy of args to deal with
-			List<Argument> copyOfArgs = args == null ? new ArrayList<>() : new ArrayList<>(args);
-			
-			//if args contains a GreedyString && args.getLast != GreedyString
-			long numGreedyArgs = copyOfArgs.stream().filter(arg -> arg instanceof IGreedyArgument).count();
-			if(numGreedyArgs >= 1) {
-				//A GreedyString has been found
-				if(!(copyOfArgs.toArray()[copyOfArgs.size() - 1] instanceof IGreedyArgument)) {
-					throw new GreedyArgumentException();
-				}
-				
-				if(numGreedyArgs > 1) {
-					throw new GreedyArgumentException();
-				}
-			}
-			
-			//Assign the command's permissions to arguments if the arguments don't already have one
-			for(Argument argument : copyOfArgs) {
-				if(argument.getArgumentPermission() == null) {
-					argument.withPermission(permission);
-				}
-			}
-			
-			if(!executor.isEmpty()) {
-				CommandAPIHandler.getInstance().register(commandName, permission, aliases, requirements, copyOfArgs, executor, isConverted);
-			}
+			List<Argument> copyOfArgs = checkArguments(args, permission);
 			
 			if(this.subcommands.size() > 0) {
-				for(CommandAPICommand subcommand : this.subcommands) {
-					flatten(this, new ArrayList<>(), subcommand);
-				}
+				//Register the command and its subcommands as one tree
+				CommandAPIHandler.getInstance().registerTree(this, copyOfArgs);
+			} else if(!executor.isEmpty()) {
+				CommandAPIHandler.getInstance().register(commandName, permission, aliases, requirements, copyOfArgs, executor, isConverted);
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -3,12 +3,26 @@ package dev.jorel.commandapi;
 public class CommandAPIConfig {
 
 	public boolean verboseOutput;
+	public long asyncExecutorTimeout;
+	public boolean commandMetrics;
+	public int maxSuggestions;
+	public boolean coalesceSuggestions;
+	public long suggestionCoalesceWindow;
+	public int suggestionRateLimit;
+	public int globalSuggestionRateLimit;
 
 	/**
 	 * Creates a new CommandAPI configuration
 	 */
 	public CommandAPIConfig() {
 		verboseOutput = false;
+		asyncExecutorTimeout = 30000L;
+		commandMetrics = false;
+		maxSuggestions = 0;
+		coalesceSuggestions = false;
+		suggestionCoalesceWindow = 0L;
+		suggestionRateLimit = 0;
+		globalSuggestionRateLimit = 0;
 	}
 
 	/**
@@ -29,4 +43,150 @@ public class CommandAPIConfig {
 		this.verboseOutput = verboseOutput;
 	}
 
+	/**
+	 * Returns the number of milliseconds an asynchronous command can run for
+	 * before it fails
+	 * 
+	 * @return the asynchronous command timeout in milliseconds, or 0 for no limit
+	 */
+	public long getAsyncExecutorTimeout() {
+		return asyncExecutorTimeout;
+	}
+
+	/**
+	 * Sets the number of milliseconds an asynchronous command can run for before
+	 * it fails
+	 * 
+	 * @param asyncExecutorTimeout the asynchronous command timeout in
+	 *                             milliseconds, or 0 for no limit
+	 */
+	public void setAsyncExecutorTimeout(long asyncExecutorTimeout) {
+		this.asyncExecutorTimeout = asyncExecutorTimeout;
+	}
+
+	/**
+	 * Returns whether per-command execution metrics are recorded
+	 * 
+	 * @return true if command metrics are recorded
+	 */
+	public boolean hasCommandMetrics() {
+		return commandMetrics;
+	}
+
+	/**
+	 * Sets whether per-command execution metrics are recorded. These can be read
+	 * using {@link CommandMetrics#getSnapshots()}
+	 * 
+	 * @param commandMetrics whether command metrics should be recorded
+	 */
+	public void setCommandMetrics(boolean commandMetrics) {
+		this.commandMetrics = commandMetrics;
+	}
+
+	/**
+	 * Returns the maximum number of suggestions that an argument sends to a
+	 * player, for arguments which don't declare their own limit
+	 * 
+	 * @return the maximum number of suggestions, or 0 for no limit
+	 */
+	public int getMaxSuggestions() {
+		return maxSuggestions;
+	}
+
+	/**
+	 * Sets the maximum number of suggestions that an argument sends to a player,
+	 * for arguments which don't declare their own limit using
+	 * {@link dev.jorel.commandapi.arguments.Argument#limitSuggestions(int)}
+	 * 
+	 * @param maxSuggestions the maximum number of suggestions, or 0 for no limit
+	 */
+	public void setMaxSuggestions(int maxSuggestions) {
+		this.maxSuggestions = maxSuggestions;
+	}
+
+	/**
+	 * Returns whether bursts of tab-complete requests from the same player are
+	 * coalesced
+	 * 
+	 * @return true if tab-complete requests are coalesced
+	 */
+	public boolean isCoalesceSuggestions() {
+		return coalesceSuggestions;
+	}
+
+	/**
+	 * Sets whether bursts of tab-complete requests from the same player are
+	 * coalesced. When a player sends a newer request, suggestions for their older
+	 * requests which haven't finished yet are discarded
+	 * 
+	 * @param coalesceSuggestions whether tab-complete requests should be
+	 *                            coalesced
+	 */
+	public void setCoalesceSuggestions(boolean coalesceSuggestions) {
+		this.coalesceSuggestions = coalesceSuggestions;
+	}
+
+	/**
+	 * Returns the number of milliseconds to wait for a newer tab-complete request
+	 * before computing suggestions
+	 * 
+	 * @return the coalescing window in milliseconds, or 0 to compute suggestions
+	 *         straight away
+	 */
+	public long getSuggestionCoalesceWindow() {
+		return suggestionCoalesceWindow;
+	}
+
+	/**
+	 * Sets the number of milliseconds to wait for a newer tab-complete request
+	 * before computing suggestions. This only applies if suggestions are
+	 * coalesced
+	 * 
+	 * @param suggestionCoalesceWindow the coalescing window in milliseconds, or
+	 *                                 0 to compute suggestions straight away
+	 */
+	public void setSuggestionCoalesceWindow(long suggestionCoalesceWindow) {
+		this.suggestionCoalesceWindow = suggestionCoalesceWindow;
+	}
+
+	/**
+	 * Returns the maximum number of tab-complete requests per second that each
+	 * player can send
+	 * 
+	 * @return the per-player rate limit, or 0 for no limit
+	 */
+	public int getSuggestionRateLimit() {
+		return suggestionRateLimit;
+	}
+
+	/**
+	 * Sets the maximum number of tab-complete requests per second that each
+	 * player can send. This only applies if suggestions are coalesced
+	 * 
+	 * @param suggestionRateLimit the per-player rate limit, or 0 for no limit
+	 */
+	public void setSuggestionRateLimit(int suggestionRateLimit) {
+		this.suggestionRateLimit = suggestionRateLimit;
+	}
+
+	/**
+	 * Returns the maximum number of tab-complete requests per second that the
+	 * whole server handles
+	 * 
+	 * @return the global rate limit, or 0 for no limit
+	 */
+	public int getGlobalSuggestionRateLimit() {
+		return globalSuggestionRateLimit;
+	}
+
+	/**
+	 * Sets the maximum number of tab-complete requests per second that the whole
+	 * server handles. This only applies if suggestions are coalesced
+	 * 
+	 * @param globalSuggestionRateLimit the global rate limit, or 0 for no limit
+	 */
+	public void setGlobalSuggestionRateLimit(int globalSuggestionRateLimit) {
+		this.globalSuggestionRateLimit = globalSuggestionRateLimit;
+	}
+
 }
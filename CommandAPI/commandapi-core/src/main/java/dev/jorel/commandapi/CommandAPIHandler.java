@@ -2,18 +2,25 @@ package dev.jorel.commandapi;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
@@ -22,6 +29,8 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.Permission;
 
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.LiteralMessage;
@@ -31,6 +40,7 @@ import com.mojang.brigadier.builder.ArgumentBuilder;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.builder.RequiredArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.context.ParsedCommandNode;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
@@ -38,6 +48,7 @@ import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.mojang.brigadier.tree.CommandNode;
 import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
 
 import de.tr7zw.changeme.nbtapi.NBTContainer;
 import dev.jorel.commandapi.arguments.Argument;
@@ -46,13 +57,17 @@ import dev.jorel.commandapi.arguments.CustomArgument;
 import dev.jorel.commandapi.arguments.CustomArgument.CustomArgumentException;
 import dev.jorel.commandapi.arguments.CustomArgument.MessageBuilder;
 import dev.jorel.commandapi.arguments.EntitySelectorArgument;
+import dev.jorel.commandapi.arguments.EntitySelectorArgument.EntitySelector;
 import dev.jorel.commandapi.arguments.ICustomProvidedArgument;
+import dev.jorel.commandapi.arguments.ICustomProvidedArgument.SuggestionProviders;
 import dev.jorel.commandapi.arguments.LiteralArgument;
 import dev.jorel.commandapi.arguments.Location2DArgument;
 import dev.jorel.commandapi.arguments.LocationArgument;
 import dev.jorel.commandapi.arguments.LocationType;
 import dev.jorel.commandapi.arguments.MultiLiteralArgument;
+import dev.jorel.commandapi.arguments.PlayerNameFilter;
 import dev.jorel.commandapi.arguments.ScoreHolderArgument;
+import dev.jorel.commandapi.executors.IExecutorTyped;
 import dev.jorel.commandapi.nms.NMS;
 
 /**
@@ -72,17 +87,41 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 		return instance;
 	}
 	
+	/**
+	 * Whether a command context knows which of a MultiLiteralArgument's literals
+	 * was used, so every literal can share the same nodes for the arguments after
+	 * it. Older versions of Brigadier don't keep the order of the parsed nodes, so
+	 * each literal has to be registered as its own command instead
+	 */
+	private static final boolean SHARED_MULTI_LITERALS;
+	
+	static {
+		boolean sharedMultiLiterals;
+		try {
+			Class.forName("com.mojang.brigadier.context.ParsedCommandNode");
+			sharedMultiLiterals = true;
+		} catch (ClassNotFoundException e) {
+			sharedMultiLiterals = false;
+		}
+		SHARED_MULTI_LITERALS = sharedMultiLiterals;
+	}
+	
 	final Map<ClassCache, Field> FIELDS = new HashMap<>();
 	final TreeMap<String, CommandPermission> PERMISSIONS_TO_FIX = new TreeMap<>();
 	final NMS<CommandListenerWrapper> NMS;
 	final CommandDispatcher<CommandListenerWrapper> DISPATCHER;
-	final Map<String, List<String>> registeredCommands; //Keep track of what has been registered for type checking 
+	final RegisteredCommandTrie registeredCommands; //Keep track of what has been registered for type checking
+	final Map<SuggestionProviders, SuggestionProvider<CommandListenerWrapper>> datapackSuggestions; //Snapshots of datapack-backed suggestions
+	final CommandTree<CommandListenerWrapper> commandTree; //The nodes of the CommandAPI's commands, which are merged into the dispatcher
+	private final Object dispatcherFileLock = new Object();
 	
 	private CommandAPIHandler() {
 		String bukkit = Bukkit.getServer().toString();
 		NMS = CommandAPIVersionHandler.getNMS(bukkit.substring(bukkit.indexOf("minecraftVersion") + 17, bukkit.length() - 1));
 		DISPATCHER = NMS.getBrigadierDispatcher();
-		registeredCommands = new HashMap<>();
+		registeredCommands = new RegisteredCommandTrie();
+		datapackSuggestions = new EnumMap<>(SuggestionProviders.class);
+		commandTree = new CommandTree<>(DISPATCHER.getRoot(), this::getArgumentBuilders);
 	}
 	
 	void checkDependencies() {
@@ -160,6 +199,9 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 
 			// Otherwise, just remove them normally
 			commandNodeChildren.remove(commandName);
+
+			// Forget its arguments too, so it can be registered again with different types
+			registeredCommands.remove(commandName);
 		} catch (SecurityException | IllegalArgumentException | IllegalAccessException e) {
 			e.printStackTrace();
 		}
@@ -170,19 +212,24 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 	 * 
 	 * @param args     set of ordered argument pairs which contain the prompt text
 	 *                 and their argument types
-	 * @param actualArgs 
 	 * @param executor code to be ran when the command is executed
+	 * @param converted whether this command is an automatically converted command
 	 * @return a brigadier command which is registered internally
 	 * @throws CommandSyntaxException if an error occurs when the command is ran
 	 */
 	Command<CommandListenerWrapper> generateCommand(List<Argument> args, CustomCommandExecutor executor, boolean converted)
 			throws CommandSyntaxException {
+		
+		// Compile the arguments once, so executing the command is just a loop over the extractors
+		final ArgumentExtractor<CommandListenerWrapper>[] extractors = compileArguments(args);
+		
+		// This also builds the executor's dispatch table up front, rather than on the first execution
+		final boolean forceNative = executor.isForceNative();
 
 		// Generate our command from executor
-		return (cmdCtx) -> {
-			CommandSender sender = NMS.getSenderForCommand(cmdCtx, executor.isForceNative());
+		final SenderCommand<CommandListenerWrapper> command = (cmdCtx, sender) -> {
 			if(converted) {
-				Object[] argObjs = argsToObjectArr(cmdCtx, args);
+				Object[] argObjs = argsToObjectArr(cmdCtx, extractors);
 				int resultValue = 0;
 				
 				// Return a String[] of arguments for converted commands
@@ -190,8 +237,8 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 				String[] result = new String[argsAndCmd.length - 1];
 				System.arraycopy(argsAndCmd, 1, result, 0, argsAndCmd.length - 1);
 				
-				@SuppressWarnings("unchecked")
-				List<String>[] entityNamesForArgs = new List[args.size()];
+				// Entity selectors run the command once for each entity that they select
+				String[][] entityNamesForArgs = new String[args.size()][];
 				
 				for(int i = 0; i < args.size(); i++) {
 					if(args.get(i) instanceof EntitySelectorArgument) {
@@ -199,192 +246,251 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 						switch(entitySelectorArg.getEntitySelector())
 						{
 						case MANY_ENTITIES:
-							@SuppressWarnings("unchecked")
-							List<Entity> entities = (List<Entity>) argObjs[i];
-							entityNamesForArgs[i] = entities.stream().map(Entity::getName).collect(Collectors.toList());
-							break;
 						case MANY_PLAYERS:
-							@SuppressWarnings("unchecked")
-							List<Player> players = (List<Player>) argObjs[i];
-							entityNamesForArgs[i] = players.stream().map(Entity::getName).collect(Collectors.toList());
+							Collection<?> entities = (Collection<?>) argObjs[i];
+							String[] names = new String[entities.size()];
+							int j = 0;
+							for(Object entity : entities) {
+								names[j++] = ((Entity) entity).getName();
+							}
+							entityNamesForArgs[i] = names;
 							break;
 						case ONE_ENTITY:
-							Entity entity = (Entity) argObjs[i];
-							entityNamesForArgs[i] = Arrays.asList(new String[] {entity.getName()});
-							break;
 						case ONE_PLAYER:
-							Player player = (Player) argObjs[i];
-							entityNamesForArgs[i] = Arrays.asList(new String[] {player.getName()});
+							entityNamesForArgs[i] = new String[] {((Entity) argObjs[i]).getName()};
 							break;
 						default:
 							break;
 						}
-					} else {
-						entityNamesForArgs[i] = Arrays.asList(new String[] {null});
 					}
 				}
 				
-				@SuppressWarnings("unchecked")
-				List<List<?>> product = (List<List<?>>) CartesianProduct.product(entityNamesForArgs);
-				CartesianProduct.flatten(product);
+				// Each combination is written straight into result
+				CartesianProduct product = new CartesianProduct(entityNamesForArgs, result);
+				int maxFanOut = CommandAPI.getConfiguration().getMaxConvertedFanOut();
+				if(maxFanOut >= 0 && product.size() > maxFanOut) {
+					throw new SimpleCommandExceptionType(new LiteralMessage("This command would run " + product.size()
+							+ " times, which is more than the limit of " + maxFanOut + " set by max-converted-fanout")).create();
+				}
 				
-				// These objects in obj are List<String>
-				for(Object obj : product) {
-					@SuppressWarnings("unchecked")
-					List<String> strings = (List<String>) obj;
-					
-					// We assume result.length == strings.length
-					for(int i = 0; i < result.length; i++) {
-						if(strings.get(i) != null) {
-							result[i] = strings.get(i);
-						}
-					}
-					resultValue += executor.execute(sender, result);
+				// Large fan-outs can be spread across multiple ticks
+				if(CommandAPI.getConfiguration().shouldSpreadConvertedFanOut() && CommandAPI.getPlugin() != null) {
+					ConvertedFanOutTask task = new ConvertedFanOutTask(argsAndCmd[0], sender, executor, product, result,
+							CommandAPI.getConfiguration().getConvertedFanOutTickBudget());
+					return task.start(CommandAPI.getPlugin());
 				}
 				
+				while(product.next()) {
+					resultValue += executor.execute(sender, result);
+				}
 				
 				return resultValue;
 			} else {
-				return executor.execute(sender, argsToObjectArr(cmdCtx, args));
+				IExecutorTyped selected = executor.select(sender);
+				if(CustomCommandExecutor.isLazy(selected)) {
+					// Arguments are only parsed when the executor reads them
+					return executor.execute(sender, selected, new CommandArguments(cmdCtx, extractors));
+				}
+				
+				// Parsed before the executor's error handling, so an error while parsing reaches Brigadier
+				return executor.execute(sender, selected, argsToObjectArr(cmdCtx, extractors));
+			}
+		};
+		
+		return (cmdCtx) -> {
+			// The sender is only resolved once, so the profiler can't throw over the executor's exception
+			CommandSender sender = NMS.getSenderForCommand(cmdCtx, forceNative);
+			Object event = CommandAPIProfiler.INSTANCE.beginExecution();
+			boolean success = false;
+			try {
+				int result = command.run(cmdCtx, sender);
+				success = true;
+				return result;
+			} finally {
+				if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+					CommandAPIProfiler.INSTANCE.commitExecution(event, cmdCtx.getInput(), sender, success);
+				}
 			}
 		};
 	}
 	
+	// A command which is run with a sender that has already been resolved from the command context
+	@FunctionalInterface
+	private interface SenderCommand<CommandListenerWrapper> {
+		int run(CommandContext<CommandListenerWrapper> cmdCtx, CommandSender sender) throws CommandSyntaxException;
+	}
+	
 	/**
-	 * Converts the List&lt;Argument> into an Object[] for command execution
+	 * Converts the compiled arguments of a command into an Object[] for command execution
 	 * @param cmdCtx the command context that will execute this command
-	 * @param args the map of strings to arguments
+	 * @param extractors the compiled extractors for the listed arguments of this command
 	 * @return an Object[] which can be used in (sender, args) -> 
 	 * @throws CommandSyntaxException
 	 */
-	Object[] argsToObjectArr(CommandContext<CommandListenerWrapper> cmdCtx, List<Argument> args) throws CommandSyntaxException {
+	Object[] argsToObjectArr(CommandContext<CommandListenerWrapper> cmdCtx, ArgumentExtractor<CommandListenerWrapper>[] extractors) throws CommandSyntaxException {
 		// Array for arguments for executor
-		List<Object> argList = new ArrayList<>();
+		Object[] argObjs = new Object[extractors.length];
+		int size = 0;
 
 		// Populate array
-		for (Argument argument : args) {
-			Object result = parseArgument(cmdCtx, argument.getNodeName(), argument);
+		for (int i = 0; i < extractors.length; i++) {
+			Object result = extractors[i].extract(cmdCtx);
 			if(result != null) {
-				argList.add(result);
+				argObjs[size++] = result;
 			}
 		}
 		
-		return argList.toArray();
+		// Arguments which resolve to null are omitted from the Object[]
+		return size == argObjs.length ? argObjs : Arrays.copyOf(argObjs, size);
 	}
 	
 	/**
-	 * Parses an argument and converts it into its standard Bukkit type (as defined in NMS.java)
-	 * @param type the argument type
-	 * @param cmdCtx the command context
+	 * Compiles a list of arguments into an array of extractors, one for each
+	 * listed argument, in the order that they were declared. This is done once
+	 * when a command is registered, so executing a command doesn't need to look
+	 * at the type of each argument again
+	 * @param args the arguments to compile
+	 * @return an array of extractors for the listed arguments in args
+	 */
+	@SuppressWarnings("unchecked")
+	ArgumentExtractor<CommandListenerWrapper>[] compileArguments(List<Argument> args) {
+		List<ArgumentExtractor<CommandListenerWrapper>> extractors = new ArrayList<>();
+		for (int i = 0; i < args.size(); i++) {
+			Argument argument = args.get(i);
+			if(!argument.isListed()) {
+				continue;
+			}
+			if(argument instanceof MultiLiteralArgument) {
+				// The command's name is the first node, so each argument's node is one after its index
+				extractors.add(compileMultiLiteral(i + 1, (MultiLiteralArgument) argument));
+			} else {
+				extractors.add(compileArgument(argument.getNodeName(), argument));
+			}
+		}
+		return extractors.toArray(new ArgumentExtractor[0]);
+	}
+	
+	/**
+	 * Creates an extractor which reads which literal of a MultiLiteralArgument was
+	 * used. Every literal shares the same command, so this is read from the
+	 * command context's parsed nodes
+	 * @param position the position of the MultiLiteralArgument's node in the command
+	 * @param argument the MultiLiteralArgument
+	 * @return an extractor which reads the literal that was used
+	 */
+	static <Source> ArgumentExtractor<Source> compileMultiLiteral(int position, MultiLiteralArgument argument) {
+		final Set<String> literals = new HashSet<>(Arrays.asList(argument.getLiterals()));
+		return cmdCtx -> {
+			List<ParsedCommandNode<Source>> nodes = cmdCtx.getNodes();
+			// If the command was run through an alias which redirects, the command's name isn't one of the nodes
+			int index = cmdCtx.getRootNode() instanceof RootCommandNode ? position : position - 1;
+			if(index < nodes.size()) {
+				CommandNode<Source> node = nodes.get(index).getNode();
+				if(node instanceof LiteralCommandNode && literals.contains(node.getName())) {
+					return node.getName();
+				}
+			}
+			// The same as what cmdCtx.getArgument() does for arguments that weren't parsed
+			throw new IllegalArgumentException("No literal of " + argument.getNodeName() + " exists in this command context");
+		};
+	}
+	
+	/**
+	 * Creates an extractor which converts an argument into its standard Bukkit type (as defined in NMS.java)
 	 * @param key the key (declared in arguments)
 	 * @param value the value (the argument declared in arguments)
-	 * @param sender the command sender
-	 * @return the standard Bukkit type
-	 * @throws CommandSyntaxException
+	 * @return an extractor which reads this argument from a command context
 	 */
-	Object parseArgument(CommandContext<CommandListenerWrapper> cmdCtx, String key, Argument value) throws CommandSyntaxException {
-		if(!value.isListed()) {
-			return null;
-		}
+	ArgumentExtractor<CommandListenerWrapper> compileArgument(String key, Argument value) {
 		switch (value.getArgumentType()) {
 		case ANGLE:
-			return NMS.getAngle(cmdCtx, key);
+			return (ArgumentExtractor.FloatExtractor<CommandListenerWrapper>) cmdCtx -> NMS.getAngle(cmdCtx, key);
 		case ADVANCEMENT:
-			return NMS.getAdvancement(cmdCtx, key);
+			return cmdCtx -> NMS.getAdvancement(cmdCtx, key);
 		case AXIS:
-			return NMS.getAxis(cmdCtx, key);
+			return cmdCtx -> NMS.getAxis(cmdCtx, key);
 		case BIOME:
-			return NMS.getBiome(cmdCtx, key);
+			return cmdCtx -> NMS.getBiome(cmdCtx, key);
 		case BLOCK_PREDICATE:
-			return NMS.getBlockPredicate(cmdCtx, key);
+			return cmdCtx -> NMS.getBlockPredicate(cmdCtx, key);
 		case BLOCKSTATE:
-			return NMS.getBlockState(cmdCtx, key);
+			return cmdCtx -> NMS.getBlockState(cmdCtx, key);
 		case ADVENTURE_CHAT:
-			return NMS.getAdventureChat(cmdCtx, key);
+			return cmdCtx -> NMS.getAdventureChat(cmdCtx, key);
 		case CHAT:
-			return NMS.getChat(cmdCtx, key);
+			return cmdCtx -> NMS.getChat(cmdCtx, key);
 		case CHATCOLOR:
-			return NMS.getChatColor(cmdCtx, key);
+			return cmdCtx -> NMS.getChatColor(cmdCtx, key);
 		case ADVENTURE_CHAT_COMPONENT:
-			return NMS.getAdventureChatComponent(cmdCtx, key);
+			return cmdCtx -> NMS.getAdventureChatComponent(cmdCtx, key);
 		case CHAT_COMPONENT:
-			return NMS.getChatComponent(cmdCtx, key);
+			return cmdCtx -> NMS.getChatComponent(cmdCtx, key);
 		case CUSTOM:
-			CustomArgument<?> arg = (CustomArgument<?>) value;
-			String customresult;
-			if(arg.isKeyed()) {
-				customresult = getNMS().getKeyedAsString(cmdCtx, key);
-			} else {
-				customresult = cmdCtx.getArgument(key, String.class);
-			}
-			
-			try {
-				return arg.getParser().apply(customresult);
-			} catch (CustomArgumentException e) {
-				throw e.toCommandSyntax(customresult, cmdCtx);
-			} catch (Exception e) {
-				String errorMsg = new MessageBuilder("Error in executing command ").appendFullInput().append(" - ")
-						.appendArgInput().appendHere().toString().replace("%input%", customresult)
-						.replace("%finput%", cmdCtx.getInput());
-				throw new SimpleCommandExceptionType(() -> {
-					return errorMsg;
-				}).create();
+			CustomArgument<?> customArgument = (CustomArgument<?>) value;
+			if (customArgument.getParsedValuesTtl() != null) {
+				ExpiringLruCache<String, Object> parsedValues = new ExpiringLruCache<>(
+						customArgument.getParsedValuesTtl().toNanos(), CustomArgument.PARSED_VALUES_CACHE_SIZE);
+				return cmdCtx -> parseCustomArgument(cmdCtx, key, customArgument, parsedValues);
 			}
+			return cmdCtx -> parseCustomArgument(cmdCtx, key, customArgument);
 		case ENCHANTMENT:
-			return NMS.getEnchantment(cmdCtx, key);
+			return cmdCtx -> NMS.getEnchantment(cmdCtx, key);
 		case ENTITY_SELECTOR:
-			EntitySelectorArgument argument = (EntitySelectorArgument) value;
-			return NMS.getEntitySelector(cmdCtx, key, argument.getEntitySelector());
+			EntitySelector selector = ((EntitySelectorArgument) value).getEntitySelector();
+			return cmdCtx -> NMS.getEntitySelector(cmdCtx, key, selector);
 		case ENTITY_TYPE:
-			return NMS.getEntityType(cmdCtx, key);
+			return cmdCtx -> NMS.getEntityType(cmdCtx, key);
 		case ENVIRONMENT:
-			return NMS.getDimension(cmdCtx, key);
+			return cmdCtx -> NMS.getDimension(cmdCtx, key);
 		case FLOAT_RANGE:
-			return NMS.getFloatRange(cmdCtx, key);
+			return cmdCtx -> NMS.getFloatRange(cmdCtx, key);
 		case FUNCTION:
-			return NMS.getFunction(cmdCtx, key);
+			return cmdCtx -> NMS.getFunction(cmdCtx, key);
 		case INT_RANGE:
-			return NMS.getIntRange(cmdCtx, key);
+			return cmdCtx -> NMS.getIntRange(cmdCtx, key);
 		case ITEMSTACK:
-			return NMS.getItemStack(cmdCtx, key);
+			return cmdCtx -> NMS.getItemStack(cmdCtx, key);
 		case ITEMSTACK_PREDICATE:
-			return NMS.getItemStackPredicate(cmdCtx, key);
+			return cmdCtx -> NMS.getItemStackPredicate(cmdCtx, key);
 		case LITERAL:
-			return ((LiteralArgument) value).getLiteral();
+			String literal = ((LiteralArgument) value).getLiteral();
+			return cmdCtx -> literal;
 		case LOCATION:
 			LocationType locationType = ((LocationArgument) value).getLocationType();
-			return NMS.getLocation(cmdCtx, key, locationType);
+			return cmdCtx -> NMS.getLocation(cmdCtx, key, locationType);
 		case LOCATION_2D:
 			LocationType locationType2d = ((Location2DArgument) value).getLocationType();
-			return NMS.getLocation2D(cmdCtx, key, locationType2d);
+			return cmdCtx -> NMS.getLocation2D(cmdCtx, key, locationType2d);
 		case LOOT_TABLE:
-			return NMS.getLootTable(cmdCtx, key);
+			return cmdCtx -> NMS.getLootTable(cmdCtx, key);
 		case MATH_OPERATION:
-			return NMS.getMathOperation(cmdCtx, key);
+			return cmdCtx -> NMS.getMathOperation(cmdCtx, key);
 		case NBT_COMPOUND:
-			return NMS.getNBTCompound(cmdCtx, key);
+			return cmdCtx -> NMS.getNBTCompound(cmdCtx, key);
 		case OBJECTIVE:
-			return NMS.getObjective(cmdCtx, key);
+			return cmdCtx -> NMS.getObjective(cmdCtx, key);
 		case OBJECTIVE_CRITERIA:
-			return NMS.getObjectiveCriteria(cmdCtx, key);
+			return cmdCtx -> NMS.getObjectiveCriteria(cmdCtx, key);
 		case PARTICLE:
-			return NMS.getParticle(cmdCtx, key);
+			return cmdCtx -> NMS.getParticle(cmdCtx, key);
 		case PLAYER:
-			return NMS.getPlayer(cmdCtx, key);
+			return cmdCtx -> NMS.getPlayer(cmdCtx, key);
 		case POTION_EFFECT:
-			return NMS.getPotionEffect(cmdCtx, key);
+			return cmdCtx -> NMS.getPotionEffect(cmdCtx, key);
 		case RECIPE:
-			return NMS.getRecipe(cmdCtx, key);
+			return cmdCtx -> NMS.getRecipe(cmdCtx, key);
 		case ROTATION:
-			return NMS.getRotation(cmdCtx, key);
+			return cmdCtx -> NMS.getRotation(cmdCtx, key);
 		case SCORE_HOLDER:
-			ScoreHolderArgument scoreHolderArgument = (ScoreHolderArgument) value;
-			return scoreHolderArgument.isSingle() ? NMS.getScoreHolderSingle(cmdCtx, key)
-					: NMS.getScoreHolderMultiple(cmdCtx, key);
+			if(((ScoreHolderArgument) value).isSingle()) {
+				return cmdCtx -> NMS.getScoreHolderSingle(cmdCtx, key);
+			} else {
+				return cmdCtx -> NMS.getScoreHolderMultiple(cmdCtx, key);
+			}
 		case SCOREBOARD_SLOT:
-			return NMS.getScoreboardSlot(cmdCtx, key);
+			return cmdCtx -> NMS.getScoreboardSlot(cmdCtx, key);
 		case MULTI_LITERAL:
-			//This case should NEVER occur!
+			//This case should NEVER occur! MultiLiterals are compiled by compileMultiLiteral
 			break;
 		case PRIMITIVE_BOOLEAN:
 		case PRIMITIVE_DOUBLE:
@@ -394,17 +500,67 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 		case PRIMITIVE_STRING:
 		case PRIMITIVE_GREEDY_STRING:
 		case PRIMITIVE_TEXT:
-			return cmdCtx.getArgument(key, value.getPrimitiveType());
+			Class<?> primitiveType = value.getPrimitiveType();
+			return cmdCtx -> cmdCtx.getArgument(key, primitiveType);
 		case SOUND:
-			return NMS.getSound(cmdCtx, key);
+			return cmdCtx -> NMS.getSound(cmdCtx, key);
 		case TEAM:
-			return NMS.getTeam(cmdCtx, key);
+			return cmdCtx -> NMS.getTeam(cmdCtx, key);
 		case TIME:
-			return NMS.getTime(cmdCtx, key);
+			return (ArgumentExtractor.IntExtractor<CommandListenerWrapper>) cmdCtx -> NMS.getTime(cmdCtx, key);
 		case UUID:
-			return NMS.getUUID(cmdCtx, key);
+			return cmdCtx -> NMS.getUUID(cmdCtx, key);
+		}
+		return cmdCtx -> null;
+	}
+	
+	/**
+	 * Parses a CustomArgument by applying its parser to the raw input of the argument
+	 * @param cmdCtx the command context
+	 * @param key the key (declared in arguments)
+	 * @param arg the custom argument to parse
+	 * @return the result of the custom argument's parser
+	 * @throws CommandSyntaxException if the parser fails to parse the input
+	 */
+	Object parseCustomArgument(CommandContext<CommandListenerWrapper> cmdCtx, String key, CustomArgument<?> arg) throws CommandSyntaxException {
+		return applyCustomParser(cmdCtx, getCustomArgumentInput(cmdCtx, key, arg), arg);
+	}
+	
+	// Same as above, but remembers the parsed value for each input
+	private Object parseCustomArgument(CommandContext<CommandListenerWrapper> cmdCtx, String key, CustomArgument<?> arg,
+			ExpiringLruCache<String, Object> parsedValues) throws CommandSyntaxException {
+		String customresult = getCustomArgumentInput(cmdCtx, key, arg);
+		Object result = parsedValues.get(customresult);
+		if (result == null) {
+			result = applyCustomParser(cmdCtx, customresult, arg);
+			if (result != null) {
+				parsedValues.put(customresult, result);
+			}
+		}
+		return result;
+	}
+	
+	private String getCustomArgumentInput(CommandContext<CommandListenerWrapper> cmdCtx, String key, CustomArgument<?> arg) throws CommandSyntaxException {
+		if(arg.isKeyed()) {
+			return NMS.getKeyedAsString(cmdCtx, key);
+		} else {
+			return cmdCtx.getArgument(key, String.class);
+		}
+	}
+	
+	private Object applyCustomParser(CommandContext<CommandListenerWrapper> cmdCtx, String customresult, CustomArgument<?> arg) throws CommandSyntaxException {
+		try {
+			return arg.getParser().apply(customresult);
+		} catch (CustomArgumentException e) {
+			throw e.toCommandSyntax(customresult, cmdCtx);
+		} catch (Exception e) {
+			String errorMsg = new MessageBuilder("Error in executing command ").appendFullInput().append(" - ")
+					.appendArgInput().appendHere().toString().replace("%input%", customresult)
+					.replace("%finput%", cmdCtx.getInput());
+			throw new SimpleCommandExceptionType(() -> {
+				return errorMsg;
+			}).create();
 		}
-		return null;
 	}
 
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -426,6 +582,18 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 	 * @param requirements 
 	 */
 	Predicate<CommandListenerWrapper> generatePermissions(String commandName, CommandPermission permission, Predicate<CommandSender> requirements) {
+		return toPermissionPredicate(registerPermission(commandName, permission), requirements);
+	}
+	
+	/**
+	 * Registers the permission of a command, as described in
+	 * {@link #generatePermissions(String, CommandPermission, Predicate)}
+	 * 
+	 * @param commandName the name of the command
+	 * @param permission  the permission the command was registered with
+	 * @return the permission that the command actually uses
+	 */
+	CommandPermission registerPermission(String commandName, CommandPermission permission) {
 		// If we've already registered a permission, set it to the "parent" permission.
 		if (PERMISSIONS_TO_FIX.containsKey(commandName.toLowerCase())) {
 			if (!PERMISSIONS_TO_FIX.get(commandName.toLowerCase()).equals(permission)) {
@@ -446,7 +614,12 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 			}
 		}
 
-		return (CommandListenerWrapper clw) -> permissionCheck(NMS.getCommandSenderForCLW(clw), finalPermission, requirements);
+		return finalPermission;
+	}
+	
+	// Creates the requirement of a command's node from its permission and requirements
+	private Predicate<CommandListenerWrapper> toPermissionPredicate(CommandPermission permission, Predicate<CommandSender> requirements) {
+		return (CommandListenerWrapper clw) -> permissionCheck(NMS.getCommandSenderForCLW(clw), permission, requirements);
 	}
 
 	/**
@@ -457,6 +630,15 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 	 * @return true if the sender satisfies the provided permission
 	 */
 	boolean permissionCheck(CommandSender sender, CommandPermission permission, Predicate<CommandSender> requirements) {
+		Object event = CommandAPIProfiler.INSTANCE.beginPermissionCheck();
+		boolean result = satisfiesPermission(sender, permission, requirements);
+		if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+			CommandAPIProfiler.INSTANCE.commitPermissionCheck(event, permission, sender, result);
+		}
+		return result;
+	}
+	
+	private boolean satisfiesPermission(CommandSender sender, CommandPermission permission, Predicate<CommandSender> requirements) {
 		boolean satisfiesPermissions;
 		if (sender == null) {
 			satisfiesPermissions = true;
@@ -513,6 +695,20 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 		CommandAPI.getLog().info("Linked " + PERMISSIONS_TO_FIX.size() + " Bukkit permissions to commands");
 	}
 
+	/**
+	 * Resends the command tree to a player, so the commands that they can see
+	 * reflect their current permissions and requirements
+	 * 
+	 * @param player the player to resend the command tree to
+	 */
+	void resendPackets(Player player) {
+		Object event = CommandAPIProfiler.INSTANCE.beginResendPackets();
+		NMS.resendPackets(player);
+		if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+			CommandAPIProfiler.INSTANCE.commitResendPackets(event, player.getName());
+		}
+	}
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
 	// SECTION: Registration //
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -521,10 +717,31 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 	// registers it
 	void register(String commandName, CommandPermission permissions, String[] aliases, Predicate<CommandSender> requirements,
 			final List<Argument> args, CustomCommandExecutor executor, boolean converted) throws Exception {
+		Object event = CommandAPIProfiler.INSTANCE.beginRegistration();
+		boolean registered = false;
+		registeredCommands.begin();
+		try {
+			registerCommand(commandName, permissions, aliases, requirements, args, executor, converted);
+			registered = true;
+		} finally {
+			// A command that failed to register mustn't conflict with registering it again
+			if(registered) {
+				registeredCommands.commit();
+			} else {
+				registeredCommands.rollback();
+			}
+			if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+				CommandAPIProfiler.INSTANCE.commitRegistration(event, commandName, args.size());
+			}
+		}
+	}
+	
+	private void registerCommand(String commandName, CommandPermission permissions, String[] aliases, Predicate<CommandSender> requirements,
+			final List<Argument> args, CustomCommandExecutor executor, boolean converted) throws Exception {
 		
-		//"Expands" our MultiLiterals into Literals
+		//"Expands" our MultiLiterals into Literals, if we can't tell which literal was used from a shared node
 		Predicate<Argument> isMultiLiteral = arg -> arg.getArgumentType() == CommandAPIArgumentType.MULTI_LITERAL;
-		if(args.stream().filter(isMultiLiteral).count() > 0) {
+		if(!SHARED_MULTI_LITERALS && args.stream().filter(isMultiLiteral).count() > 0) {
 		
 			int index = 0;
 			for(Argument argument : args) {
@@ -561,47 +778,131 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 			}
 		}
 		
+		Command<CommandListenerWrapper> command = prepareCommand(commandName, args, executor, converted);
+		if (command == null) {
+			return;
+		}
+		List<CommandNode<CommandListenerWrapper>> children = commandTree.buildArgumentNodes(args, 0, command);
+		registerCommandNode(commandName, permissions, aliases, requirements, children, args.isEmpty() ? command : null, converted);
+	}
+	
+	/**
+	 * Registers a command and all of its subcommands as a single tree. Each
+	 * subcommand is a literal for its name and a literal for each of its aliases,
+	 * which all share the nodes of the subcommand's arguments and subcommands.
+	 * The command's node and its aliases are only registered once, instead of
+	 * once for every subcommand that has an executor
+	 * 
+	 * @param command the command to register
+	 * @param args    the command's checked arguments
+	 */
+	void registerTree(CommandAPICommand command, List<Argument> args) throws Exception {
+		Object event = CommandAPIProfiler.INSTANCE.beginRegistration();
+		boolean registered = false;
+		registeredCommands.begin();
+		try {
+			List<CommandNode<CommandListenerWrapper>> children = new ArrayList<>();
+			Command<CommandListenerWrapper> executable = null;
+			if (!command.getExecutor().isEmpty()) {
+				executable = prepareBranch(command, command.getExecutor(), args, 0, children);
+			}
+			for (CommandAPICommand subcommand : command.getSubcommands()) {
+				// Shared nodes can't tell which literal of a MultiLiteralArgument was used on older versions of Brigadier
+				if (!SHARED_MULTI_LITERALS && CommandTree.hasMultiLiteralArguments(subcommand)) {
+					registerSubcommand(command, new ArrayList<>(), subcommand);
+				} else {
+					children.addAll(commandTree.buildSubcommandNodes(command, new ArrayList<>(), subcommand,
+							(branchArgs, executor) -> prepareCommand(command.getName(), branchArgs, executor, command.isConverted())));
+				}
+			}
+			
+			if (executable != null || !children.isEmpty()) {
+				registerCommandNode(command.getName(), command.getPermission(), command.getAliases(), command.getRequirements(),
+						children, args.isEmpty() ? executable : null, command.isConverted());
+			}
+			registered = true;
+		} finally {
+			if(registered) {
+				registeredCommands.commit();
+			} else {
+				registeredCommands.rollback();
+			}
+			if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+				CommandAPIProfiler.INSTANCE.commitRegistration(event, command.getName(), args.size());
+			}
+		}
+	}
+	
+	// Registers each branch of a subcommand that has an executor as a command of its own
+	private void registerSubcommand(CommandAPICommand root, List<Argument> path, CommandAPICommand subcommand) throws Exception {
+		path.add(CommandTree.toLiteral(subcommand));
+		if (!subcommand.getExecutor().isEmpty()) {
+			path.addAll(CommandAPICommand.checkArguments(subcommand.getArguments(), root.getPermission()));
+			registerCommand(root.getName(), root.getPermission(), root.getAliases(), root.getRequirements(), new ArrayList<>(path),
+					subcommand.getExecutor(), root.isConverted());
+		}
+		for (CommandAPICommand subsubcommand : subcommand.getSubcommands()) {
+			registerSubcommand(root, new ArrayList<>(path), subsubcommand);
+		}
+	}
+	
+	/**
+	 * Prepares one branch of a command's tree which has an executor, and adds the
+	 * nodes of its arguments to the provided child nodes
+	 * 
+	 * @param root     the command that the branch belongs to
+	 * @param executor the branch's executor
+	 * @param args     the branch's arguments, including the literals of the subcommands that lead to it
+	 * @param from     the index of the branch's first argument after those literals
+	 * @param children the child nodes to add the branch's argument nodes to
+	 * @return the branch's executable command, or null if the branch isn't part of the tree
+	 */
+	private Command<CommandListenerWrapper> prepareBranch(CommandAPICommand root, CustomCommandExecutor executor, List<Argument> args,
+			int from, List<CommandNode<CommandListenerWrapper>> children) throws Exception {
+		// Shared nodes can't tell which literal of a MultiLiteralArgument was used on older versions of Brigadier
+		if (!SHARED_MULTI_LITERALS && args.subList(from, args.size()).stream().anyMatch(MultiLiteralArgument.class::isInstance)) {
+			registerCommand(root.getName(), root.getPermission(), root.getAliases(), root.getRequirements(), args, executor, root.isConverted());
+			return null;
+		}
+		
+		Command<CommandListenerWrapper> command = prepareCommand(root.getName(), args, executor, root.isConverted());
+		if (command != null) {
+			children.addAll(commandTree.buildArgumentNodes(args, from, command));
+		}
+		return command;
+	}
+	
+	/**
+	 * Prepares a command to be added to the dispatcher. This checks that the
+	 * command doesn't conflict with a previously registered command and
+	 * generates its executable command
+	 * 
+	 * @return the executable command, or null if it conflicts with a previously
+	 *         registered command
+	 */
+	private Command<CommandListenerWrapper> prepareCommand(String commandName, List<Argument> args,
+			CustomCommandExecutor executor, boolean converted) throws Exception {
 		// Prevent nodes of the same name but with different types:
 		// allow    /race invite<LiteralArgument> player<PlayerArgument>
 		// disallow /race invite<LiteralArgument> player<EntitySelectorArgument>
-		if(registeredCommands.containsKey(commandName)) {
-			List<String[]> regArgs = registeredCommands.get(commandName).stream().map(s -> s.split(":")).collect(Collectors.toList());
-			for(int i = 0; i < args.size(); i++) {
-				// Avoid IAOOBEs
-				if(regArgs.size() == i && regArgs.size() < args.size()) {
-					break;
-				}
-				// We want to ensure all node names are the same
-				if(!regArgs.get(i)[0].equals(args.get(i).getNodeName())) {
-					break;
-				}
-				// This only applies to the last argument
-				if(i == args.size() - 1) {
-					if(!regArgs.get(i)[1].equals(args.get(i).getClass().getSimpleName())) { 
-						
-						//Command we're trying to register
-						StringBuilder builder = new StringBuilder();
-						args.forEach(arg -> builder.append(arg.getNodeName()).append("<").append(arg.getClass().getSimpleName()).append("> "));
-						
-						//Command it conflicts with
-						StringBuilder builder2 = new StringBuilder();
-						regArgs.forEach(arg -> builder2.append(arg[0]).append("<").append(arg[1]).append("> "));
-						
-						// Lovely high quality error message formatting (inspired by Elm)
-						CommandAPI.getLog().severe("Failed to register command:");
-						CommandAPI.getLog().severe("");
-						CommandAPI.getLog().severe("  " + commandName + " " + builder.toString());
-						CommandAPI.getLog().severe("");
-						CommandAPI.getLog().severe("Because it conflicts with this previously registered command:");
-						CommandAPI.getLog().severe("");
-						CommandAPI.getLog().severe("  " + commandName + " " + builder2.toString());
-						CommandAPI.getLog().severe("");
-						return;
-					}
-				}
-			}
+		// This is checked against every previously registered command, at every argument
+		RegisteredCommandTrie.Node conflict = registeredCommands.findConflict(commandName, args);
+		if(conflict != null) {
+			//Command we're trying to register
+			StringBuilder builder = new StringBuilder();
+			args.forEach(arg -> builder.append(arg.getNodeName()).append("<").append(arg.getClass().getSimpleName()).append("> "));
+			
+			// Lovely high quality error message formatting (inspired by Elm)
+			CommandAPI.getLog().severe("Failed to register command:");
+			CommandAPI.getLog().severe("");
+			CommandAPI.getLog().severe("  " + commandName + " " + builder.toString());
+			CommandAPI.getLog().severe("");
+			CommandAPI.getLog().severe("Because it conflicts with this previously registered command:");
+			CommandAPI.getLog().severe("");
+			CommandAPI.getLog().severe("  " + conflict.describe());
+			CommandAPI.getLog().severe("");
+			return null;
 		}
-		registeredCommands.put(commandName, args.stream().map(arg -> arg.getNodeName() + ":" + arg.getClass().getSimpleName()).collect(Collectors.toList()));
 		
 		if (CommandAPI.getConfiguration().hasVerboseOutput()) {
 			// Create a list of argument names
@@ -611,125 +912,214 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 		}
 
 		Command<CommandListenerWrapper> command = generateCommand(args, executor, converted);
+		if (CommandMetrics.isEnabled()) {
+			StringBuilder path = new StringBuilder(commandName);
+			for (Argument arg : args) {
+				path.append(' ');
+				if (arg instanceof LiteralArgument) {
+					path.append(((LiteralArgument) arg).getLiteral());
+				} else if (arg instanceof MultiLiteralArgument) {
+					path.append('(').append(arg.getNodeName()).append(')');
+				} else {
+					path.append('<').append(arg.getNodeName()).append('>');
+				}
+			}
+			command = CommandMetrics.instrument(path.toString(), command);
+		}
+
+		// Inserted once generated, and removed again if the registration fails
+		registeredCommands.insert(commandName, args);
+		return command;
+	}
+	
+	/**
+	 * Registers a command's node and its aliases
+	 * 
+	 * @param children the nodes of the command's first argument
+	 * @param command  the command to execute if there are no arguments, or null
+	 */
+	private void registerCommandNode(String commandName, CommandPermission permissions, String[] aliases, Predicate<CommandSender> requirements,
+			List<CommandNode<CommandListenerWrapper>> children, Command<CommandListenerWrapper> command, boolean converted) {
+		// Link command name to the first argument (or the executor) and register
+		CommandPermission commandPermission = registerPermission(commandName, permissions);
+		Predicate<CommandListenerWrapper> requirement = toPermissionPredicate(commandPermission, requirements);
+		LiteralArgumentBuilder<CommandListenerWrapper> commandNode = getLiteralArgumentBuilder(commandName).requires(requirement);
+		LiteralCommandNode<CommandListenerWrapper> resultantNode = commandTree.register(commandTree.withChildren(commandNode, children, command));
 
 		/*
-		 * The innermost argument needs to be connected to the executor. Then that
-		 * argument needs to be connected to the previous argument etc. Then the first
-		 * argument needs to be connected to the command name
-		 *
-		 * CommandName -> Args1 -> Args2 -> ... -> ArgsN -> Executor
+		 * Register aliases as nodes which redirect to the command's node, so the
+		 * command's arguments only exist once in the dispatcher. Aliases with the
+		 * same permission as the command share its requirement. Converted commands
+		 * read the arguments from the input range of the command context, which
+		 * doesn't include the alias after a redirect, so their aliases share the
+		 * argument nodes instead
 		 */
-
-		LiteralCommandNode<CommandListenerWrapper> resultantNode;
-		if (args.isEmpty()) {
-			// Link command name to the executor
-			resultantNode = DISPATCHER.register(getLiteralArgumentBuilder(commandName).requires(generatePermissions(commandName, permissions, requirements)).executes(command));
-
-			// Register aliases
-			for (String alias : aliases) {
+		for (String alias : aliases) {
+			if (CommandAPI.getConfiguration().hasVerboseOutput()) {
 				CommandAPI.logInfo("Registering alias /" + alias + " -> " + resultantNode.getName());
-				DISPATCHER.register(getLiteralArgumentBuilder(alias).requires(generatePermissions(alias, permissions, requirements)).executes(command));
 			}
-		} else {
-
-			// List of keys for reverse iteration
-			//ArrayList<String> keys = new ArrayList<>(args.keySet());
-
-			// Link the last element to the executor
-			ArgumentBuilder<CommandListenerWrapper, ?> inner;
-			// New scope used here to prevent innerArg accidentally being used below
-			{
-				Argument innerArg = args.get(args.size() - 1);
-
-				// Handle Literal arguments
-				if (innerArg instanceof LiteralArgument) {
-					String str = ((LiteralArgument) innerArg).getLiteral();
-					inner = getLiteralArgumentBuilderArgument(str, innerArg.getArgumentPermission(), innerArg.getRequirements()).executes(command);
-				}
-
-				// Handle arguments with built-in suggestion providers
-				else if (innerArg instanceof ICustomProvidedArgument
-						&& !innerArg.getOverriddenSuggestions().isPresent()) {
-					inner = getRequiredArgumentBuilderWithProvider(innerArg,
-							NMS.getSuggestionProvider(((ICustomProvidedArgument) innerArg).getSuggestionProvider()))
-									.executes(command);
+			
+			CommandPermission aliasPermission = registerPermission(alias, permissions);
+			Predicate<CommandListenerWrapper> aliasRequirement = aliasPermission.equals(commandPermission) ? requirement
+					: toPermissionPredicate(aliasPermission, requirements);
+			LiteralArgumentBuilder<CommandListenerWrapper> aliasNode = getLiteralArgumentBuilder(alias).requires(aliasRequirement);
+			if (!converted && canRedirect(alias, resultantNode)) {
+				// A redirect is only followed if there's more input, so the alias also needs the command's executor
+				aliasNode.redirect(resultantNode);
+				if (command != null) {
+					aliasNode.executes(command);
 				}
-
-				// Handle every other type of argument
-				else {
-					inner = getRequiredArgumentBuilderDynamic(args, innerArg).executes(command);
+				DISPATCHER.getRoot().addChild(aliasNode.build());
+			} else {
+				commandTree.share(children);
+				commandTree.register(commandTree.withChildren(aliasNode, children, command));
+			}
+		}
+	}
+	
+	/**
+	 * Writes a JSON file that describes every command in the dispatcher. The JSON
+	 * is built on the server thread, since it walks the dispatcher, and is then
+	 * written on an asynchronous thread. Exports never write at the same time, so
+	 * exports to the same file don't interleave
+	 * 
+	 * @param file the file to write to
+	 * @return a future which is completed once the file has been written
+	 */
+	CompletableFuture<Void> exportDispatcherFile(File file) {
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		Runnable export = () -> {
+			final JsonObject json;
+			try {
+				json = NMS.getDispatcherJson(DISPATCHER);
+				if (json == null) {
+					// This version can only write the file itself, so it's written here on the server thread
+					synchronized (dispatcherFileLock) {
+						file.createNewFile();
+						NMS.createDispatcherFile(file, DISPATCHER);
+					}
+					result.complete(null);
+					return;
 				}
+			} catch (IOException | RuntimeException e) {
+				result.completeExceptionally(e);
+				return;
 			}
-
-			// Link everything else up, except the first
-			ArgumentBuilder<CommandListenerWrapper, ?> outer = inner;
-			for (int i = args.size() - 2; i >= 0; i--) {
-				Argument outerArg = args.get(i);
-
-				// Handle Literal arguments
-				if (outerArg instanceof LiteralArgument) {
-					String str = ((LiteralArgument) outerArg).getLiteral();
-					outer = getLiteralArgumentBuilderArgument(str, outerArg.getArgumentPermission(), outerArg.getRequirements()).then(outer);
+			Bukkit.getScheduler().runTaskAsynchronously(CommandAPI.getPlugin(), () -> {
+				synchronized (dispatcherFileLock) {
+					try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+						new GsonBuilder().setPrettyPrinting().create().toJson(json, writer);
+						result.complete(null);
+					} catch (IOException | RuntimeException e) {
+						result.completeExceptionally(e);
+					}
 				}
+			});
+		};
+		if (Bukkit.isPrimaryThread()) {
+			export.run();
+		} else {
+			Bukkit.getScheduler().runTask(CommandAPI.getPlugin(), export);
+		}
+		return result;
+	}
 
-				// Handle arguments with built-in suggestion providers
-				else if (outerArg instanceof ICustomProvidedArgument && !outerArg.getOverriddenSuggestions().isPresent()) {
-					outer = getRequiredArgumentBuilderWithProvider(outerArg,
-							NMS.getSuggestionProvider(((ICustomProvidedArgument) outerArg).getSuggestionProvider()))
-									.then(outer);
-				}
+	// Gets the builders for the nodes of an argument, which is one builder for each literal of a MultiLiteralArgument
+	private List<ArgumentBuilder<CommandListenerWrapper, ?>> getArgumentBuilders(List<Argument> args, Argument arg) {
+		List<ArgumentBuilder<CommandListenerWrapper, ?>> builders = new ArrayList<>();
 
-				// Handle every other type of argument
-				else {
-					outer = getRequiredArgumentBuilderDynamic(args, outerArg).then(outer);
-				}
+		// Handle MultiLiteral arguments
+		if (arg instanceof MultiLiteralArgument) {
+			for (String literal : ((MultiLiteralArgument) arg).getLiterals()) {
+				builders.add(getLiteralArgumentBuilderArgument(literal, arg.getArgumentPermission(), arg.getRequirements()));
 			}
+		}
 
-			// Link command name to first argument and register
-			resultantNode = DISPATCHER.register(getLiteralArgumentBuilder(commandName).requires(generatePermissions(commandName, permissions, requirements)).then(outer));
-
-			// Register aliases
-			for (String alias : aliases) {
-				if (CommandAPI.getConfiguration().hasVerboseOutput()) {
-					CommandAPI.logInfo("Registering alias /" + alias + " -> " + resultantNode.getName());
-				}
-				
-				DISPATCHER.register(getLiteralArgumentBuilder(alias).requires(generatePermissions(alias, permissions, requirements)).then(outer));
-			}
+		// Handle Literal arguments
+		else if (arg instanceof LiteralArgument) {
+			String str = ((LiteralArgument) arg).getLiteral();
+			builders.add(getLiteralArgumentBuilderArgument(str, arg.getArgumentPermission(), arg.getRequirements()));
 		}
 
-		// Produce the commandDispatch.json file for debug purposes
-		if (CommandAPI.getConfiguration().willCreateDispatcherFile()) {
-			File file = CommandAPI.getDispatcherFile();
-			try {
-				file.createNewFile();
-			} catch (IOException e) {
-				e.printStackTrace(System.out);
-			}
+		// Handle arguments with built-in suggestion providers
+		else if (arg instanceof ICustomProvidedArgument && !hasOverriddenSuggestions(arg)) {
+			builders.add(getRequiredArgumentBuilderWithProvider(arg,
+					getCustomProvidedSuggestions(((ICustomProvidedArgument) arg).getSuggestionProvider())));
+		}
 
-			NMS.createDispatcherFile(file, DISPATCHER);
+		// Handle every other type of argument
+		else {
+			builders.add(getRequiredArgumentBuilderDynamic(args, arg));
 		}
+		return builders;
 	}
-
+	
+	/**
+	 * Returns whether an alias can be registered as a redirect to a command's
+	 * node. Brigadier ignores the children of a node that redirects, so an alias
+	 * which is already a command in its own right can't redirect. An alias which
+	 * redirects to a node that has since been unregistered is removed, so it can
+	 * redirect to the new node instead
+	 * 
+	 * @param alias the alias to register
+	 * @param target the command's node
+	 * @return true if the alias can redirect to the command's node
+	 */
+	private boolean canRedirect(String alias, CommandNode<CommandListenerWrapper> target) {
+		CommandNode<CommandListenerWrapper> existing = DISPATCHER.getRoot().getChild(alias);
+		if (existing == null || existing.getRedirect() == target) {
+			return true;
+		}
+		CommandNode<CommandListenerWrapper> redirect = existing.getRedirect();
+		if (redirect != null && DISPATCHER.getRoot().getChild(redirect.getName()) != redirect) {
+			unregister(alias, false);
+			return true;
+		}
+		return false;
+	}
+	
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
 	// SECTION: SuggestionProviders //
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
 
 	// NMS ICompletionProvider.a()
 	CompletableFuture<Suggestions> getSuggestionsBuilder(SuggestionsBuilder builder, IStringTooltip[] array) {
+		return getSuggestionsBuilder(builder, array, SuggestionLimit.NONE);
+	}
+	
+	// Same as above, but stops once the limit is reached, or keeps the best matches for a ranked limit
+	CompletableFuture<Suggestions> getSuggestionsBuilder(SuggestionsBuilder builder, IStringTooltip[] array, SuggestionLimit limit) {
 		String remaining = builder.getRemaining().toLowerCase(Locale.ROOT);
-		for (int i = 0; i < array.length; i++) {
-			IStringTooltip str = array[i];
-			if (str.getSuggestion().toLowerCase(Locale.ROOT).startsWith(remaining)) {
-				Message tooltipMsg = null;
-				if(str.getTooltip() != null) {
-					tooltipMsg = new LiteralMessage(str.getTooltip());
+		if (limit.isRanked()) {
+			SuggestionLimit.Heap<IStringTooltip> best = limit.newHeap(str -> str);
+			for (int i = 0; i < array.length; i++) {
+				if (array[i].getSuggestion().toLowerCase(Locale.ROOT).startsWith(remaining)) {
+					best.offer(array[i]);
+				}
+			}
+			for (IStringTooltip str : best.elements()) {
+				suggest(builder, str);
+			}
+		} else {
+			int count = 0;
+			for (int i = 0; i < array.length && count < limit.getMax(); i++) {
+				IStringTooltip str = array[i];
+				if (str.getSuggestion().toLowerCase(Locale.ROOT).startsWith(remaining)) {
+					suggest(builder, str);
+					count++;
 				}
-				builder.suggest(str.getSuggestion(), tooltipMsg);
 			}
 		}
 		return builder.buildFuture();
 	}
+	
+	private static void suggest(SuggestionsBuilder builder, IStringTooltip str) {
+		Message tooltipMsg = null;
+		if(str.getTooltip() != null) {
+			tooltipMsg = new LiteralMessage(str.getTooltip());
+		}
+		builder.suggest(str.getSuggestion(), tooltipMsg);
+	}
 
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
 	// SECTION: Argument Builders //
@@ -763,7 +1153,7 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 			final List<Argument> args, Argument argument) {
 
 		// If there are no changes to the default suggestions, return it as normal
-		if (!argument.getOverriddenSuggestions().isPresent()) {
+		if (!hasOverriddenSuggestions(argument)) {
 			@SuppressWarnings("unchecked")
 			RequiredArgumentBuilder<CommandListenerWrapper, T> builder = RequiredArgumentBuilder.argument(argument.getNodeName(), (ArgumentType<T>) argument.getRawType());
 			return builder.requires(clw -> permissionCheck(NMS.getCommandSenderForCLW(clw), argument.getArgumentPermission(), argument.getRequirements()));
@@ -783,7 +1173,32 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 		RequiredArgumentBuilder<CommandListenerWrapper, T> builder = RequiredArgumentBuilder
 				.argument(argument.getNodeName(), (ArgumentType<T>) argument.getRawType());
 		return builder.requires(clw -> permissionCheck(NMS.getCommandSenderForCLW(clw),
-				argument.getArgumentPermission(), argument.getRequirements())).suggests(provider);
+				argument.getArgumentPermission(), argument.getRequirements())).suggests(coalesce(provider));
+	}
+	
+	// Puts a SuggestionProvider behind the suggestion coalescer, if suggestions are coalesced
+	private SuggestionProvider<CommandListenerWrapper> coalesce(SuggestionProvider<CommandListenerWrapper> provider) {
+		SuggestionCoalescer coalescer = SuggestionCoalescer.getInstance();
+		if (coalescer == null) {
+			return provider;
+		}
+		return (CommandContext<CommandListenerWrapper> context, SuggestionsBuilder builder) -> coalescer
+				.getSuggestions(NMS.getCommandSenderForCLW(context.getSource()), context, builder, provider);
+	}
+	
+	// Gets an NMS SuggestionProvider, sharing one snapshot of the datapack-backed ones between every argument
+	SuggestionProvider<CommandListenerWrapper> getCustomProvidedSuggestions(SuggestionProviders provider) {
+		if (!DatapackSuggestions.isDatapackBacked(provider)) {
+			return NMS.getSuggestionProvider(provider);
+		}
+		synchronized (datapackSuggestions) {
+			return datapackSuggestions.computeIfAbsent(provider,
+					p -> new DatapackSuggestions<>(NMS.getSuggestionProvider(p)));
+		}
+	}
+	
+	private static boolean hasOverriddenSuggestions(Argument argument) {
+		return argument.getOverriddenSuggestions().isPresent() || argument.getOverriddenSuggestionsAsync().isPresent();
 	}
 	
 	static Argument getArgument(List<Argument> args, String nodeName) {
@@ -791,39 +1206,118 @@ public class CommandAPIHandler<CommandListenerWrapper> {
 	}
 	
 	SuggestionProvider<CommandListenerWrapper> toSuggestions(String nodeName, List<Argument> args) {
-		return (CommandContext<CommandListenerWrapper> context, SuggestionsBuilder builder) -> {
-			// Populate Object[], which is our previously filled arguments
-			List<Object> previousArguments = new ArrayList<>();
-
-			for (Argument arg : args) {
-				if (arg.getNodeName().equals(nodeName)) {
-					break;
+		// Compile the arguments declared before this node, which are our previously filled arguments
+		List<Argument> previousArgs = new ArrayList<>();
+		for (Argument arg : args) {
+			if (arg.getNodeName().equals(nodeName)) {
+				break;
+			}
+			previousArgs.add(arg);
+		}
+		final ArgumentExtractor<CommandListenerWrapper>[] extractors = compileArguments(previousArgs);
+		final Argument argument = getArgument(args, nodeName);
+		final AsyncSuggestionProvider asyncProvider = argument.getOverriddenSuggestionsAsync().isPresent()
+				? new AsyncSuggestionProvider(argument) : null;
+		final BiFunction<CommandSender, Object[], IStringTooltip[]> provider = SuggestionCache.wrap(argument,
+				argument.getOverriddenSuggestions().orElseGet(() -> (c, m) -> new IStringTooltip[0]));
+		final SuggestionLimit limit = SuggestionLimit.of(argument);
+		
+		// Online players are indexed as they join and leave, so don't need to be searched
+		if (argument.getPlayerNameSuggestions().isPresent()) {
+			final Set<PlayerNameFilter> filters = argument.getPlayerNameSuggestions().get();
+			return (CommandContext<CommandListenerWrapper> context, SuggestionsBuilder builder) -> {
+				Object event = CommandAPIProfiler.INSTANCE.beginSuggestions();
+				CommandSender sender = NMS.getCommandSenderForCLW(context.getSource());
+				CompletableFuture<Suggestions> suggestions;
+				if (PlayerNameIndex.isEnabled()) {
+					suggestions = PlayerNameIndex.suggest(builder, sender, filters, limit);
+				} else {
+					// The index is only kept once the CommandAPI is enabled
+					suggestions = getSuggestionsBuilder(builder, provider.apply(sender, new Object[0]), limit);
 				}
-				
-				Object result;
-				try {
-					result = parseArgument(context, arg.getNodeName(), arg);
-				} catch(IllegalArgumentException e) {
-					/*
-					 * Redirected commands don't parse previous arguments properly. Simplest way to
-					 * determine what we should do is simply set it to null, since there's nothing
-					 * else we can do. I thought about letting this simply be an empty array, but
-					 * then it's even more annoying to deal with - I wouldn't expect an array of
-					 * size n to suddenly, randomly be 0, but I would expect random NPEs because
-					 * let's be honest, this is Java we're dealing with.
-					 */
-					result = null;
+				if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+					CommandAPIProfiler.INSTANCE.commitSuggestions(event, nodeName, builder.getInput());
 				}
-				if(result != null) {
-					previousArguments.add(result);
+				return suggestions;
+			};
+		}
+		
+		// Suggestions which never change don't depend on the previous arguments, so are indexed once here
+		if (argument.getStaticSuggestions().isPresent()) {
+			final PrefixIndexedSuggestions index = new PrefixIndexedSuggestions(argument.getStaticSuggestions().get());
+			return (CommandContext<CommandListenerWrapper> context, SuggestionsBuilder builder) -> {
+				Object event = CommandAPIProfiler.INSTANCE.beginSuggestions();
+				CompletableFuture<Suggestions> suggestions = index.suggest(builder, limit);
+				if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+					CommandAPIProfiler.INSTANCE.commitSuggestions(event, nodeName, builder.getInput());
 				}
+				return suggestions;
+			};
+		}
+		
+		final PreviousArgumentsCache previousArgumentsCache = PreviousArgumentsCache.isCacheable(previousArgs)
+				? new PreviousArgumentsCache() : null;
+		
+		return (CommandContext<CommandListenerWrapper> context, SuggestionsBuilder builder) -> {
+			Object event = CommandAPIProfiler.INSTANCE.beginSuggestions();
+			CommandSender sender = NMS.getCommandSenderForCLW(context.getSource());
+			
+			// The previous arguments only change if the input before this argument changes
+			String previousInput = builder.getInput().substring(0, builder.getStart());
+			Object[] previousArguments = previousArgumentsCache == null ? null : previousArgumentsCache.get(sender, previousInput);
+			if (previousArguments == null) {
+				previousArguments = parsePreviousArguments(context, extractors);
+				if (previousArgumentsCache != null) {
+					previousArgumentsCache.put(sender, previousInput, previousArguments);
+				}
+			}
+			
+			CompletableFuture<Suggestions> suggestions;
+			if (asyncProvider != null) {
+				suggestions = asyncProvider.getSuggestions(sender, previousArguments)
+						.thenCompose(tooltips -> getSuggestionsBuilder(builder, tooltips, limit));
+				// The event covers the suggestions being computed, not just being requested
+				suggestions.whenComplete((result, throwable) -> {
+					if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+						CommandAPIProfiler.INSTANCE.commitSuggestions(event, nodeName, builder.getInput());
+					}
+				});
+				return suggestions;
 			}
-			return getSuggestionsBuilder(builder,
-					getArgument(args, nodeName).getOverriddenSuggestions()
-							.orElseGet(() -> (c, m) -> new IStringTooltip[0])
-							.apply(NMS.getCommandSenderForCLW(context.getSource()), previousArguments.toArray()));
+			suggestions = getSuggestionsBuilder(builder, provider.apply(sender, previousArguments), limit);
+			if(CommandAPIProfiler.INSTANCE.shouldCommit(event)) {
+				CommandAPIProfiler.INSTANCE.commitSuggestions(event, nodeName, builder.getInput());
+			}
+			return suggestions;
 		};
 	}
+	
+	// Populate Object[], which is our previously filled arguments
+	private Object[] parsePreviousArguments(CommandContext<CommandListenerWrapper> context,
+			ArgumentExtractor<CommandListenerWrapper>[] extractors) throws CommandSyntaxException {
+		List<Object> previousArguments = new ArrayList<>(extractors.length);
+
+		for (ArgumentExtractor<CommandListenerWrapper> extractor : extractors) {
+			Object result;
+			try {
+				result = extractor.extract(context);
+			} catch(IllegalArgumentException e) {
+				/*
+				 * Redirected commands don't parse previous arguments properly. Simplest way to
+				 * determine what we should do is simply set it to null, since there's nothing
+				 * else we can do. I thought about letting this simply be an empty array, but
+				 * then it's even more annoying to deal with - I wouldn't expect an array of
+				 * size n to suddenly, randomly be 0, but I would expect random NPEs because
+				 * let's be honest, this is Java we're dealing with.
+				 */
+				result = null;
+			}
+			if(result != null) {
+				previousArguments.add(result);
+			}
+		}
+		return previousArguments.toArray();
+	}
 
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
 	// SECTION: Reflection //
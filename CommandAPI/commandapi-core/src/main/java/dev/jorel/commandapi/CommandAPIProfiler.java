@@ -0,0 +1,74 @@
+package dev.jorel.commandapi;
+
+import org.bukkit.command.CommandSender;
+
+/**
+ * Records how long each stage of the CommandAPI takes. By default nothing is
+ * recorded. On JVMs which include Java Flight Recorder, a
+ * {@link JfrCommandAPIProfiler} is used instead, which emits a JFR event for
+ * each stage. It's loaded reflectively so that the CommandAPI still runs on JVMs
+ * without <code>jdk.jfr</code>.
+ * <p>
+ * Each stage is recorded by calling one of the <code>begin</code> methods,
+ * then checking {@link #shouldCommit(Object)} once the stage has finished, and
+ * only then computing the stage's fields and committing them.
+ */
+class CommandAPIProfiler {
+	
+	static final CommandAPIProfiler INSTANCE = load();
+	
+	private static CommandAPIProfiler load() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (CommandAPIProfiler) Class.forName("dev.jorel.commandapi.JfrCommandAPIProfiler").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new CommandAPIProfiler();
+		}
+	}
+	
+	Object beginExecution() {
+		return null;
+	}
+	
+	Object beginSuggestions() {
+		return null;
+	}
+	
+	Object beginPermissionCheck() {
+		return null;
+	}
+	
+	Object beginRegistration() {
+		return null;
+	}
+	
+	Object beginResendPackets() {
+		return null;
+	}
+	
+	/**
+	 * Ends a stage, and returns whether it should be committed
+	 * 
+	 * @param event the event returned by one of the begin methods
+	 * @return true if the event is being recorded and should be committed
+	 */
+	boolean shouldCommit(Object event) {
+		return false;
+	}
+	
+	void commitExecution(Object event, String input, CommandSender sender, boolean success) {
+	}
+	
+	void commitSuggestions(Object event, String nodeName, String input) {
+	}
+	
+	void commitPermissionCheck(Object event, CommandPermission permission, CommandSender sender, boolean result) {
+	}
+	
+	void commitRegistration(Object event, String commandName, int argumentCount) {
+	}
+	
+	void commitResendPackets(Object event, String playerName) {
+	}
+	
+}
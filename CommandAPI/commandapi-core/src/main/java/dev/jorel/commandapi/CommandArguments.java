@@ -0,0 +1,230 @@
+package dev.jorel.commandapi;
+
+import java.util.Arrays;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * The listed arguments of a command, in the order that they were declared.
+ * Each argument is only parsed the first time that it is read and is then
+ * remembered, so arguments which are never read (such as entity selectors
+ * which require scanning the world) are never parsed.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class CommandArguments {
+
+	private static final Object UNRESOLVED = new Object();
+
+	private final CommandContext cmdCtx;
+	private final ArgumentExtractor[] extractors;
+	private final Object[] values;
+
+	<CommandListenerWrapper> CommandArguments(CommandContext<CommandListenerWrapper> cmdCtx,
+			ArgumentExtractor<CommandListenerWrapper>[] extractors) {
+		this.cmdCtx = cmdCtx;
+		this.extractors = extractors;
+		this.values = new Object[extractors.length];
+		Arrays.fill(this.values, UNRESOLVED);
+	}
+
+	private CommandArguments(Object[] values) {
+		this.cmdCtx = null;
+		this.extractors = null;
+		this.values = values;
+	}
+
+	/**
+	 * Creates a CommandArguments from arguments which have already been parsed
+	 *
+	 * @param args the parsed arguments
+	 * @return a CommandArguments which contains the provided arguments
+	 */
+	public static CommandArguments of(Object[] args) {
+		return new CommandArguments(args);
+	}
+
+	/**
+	 * Returns the number of listed arguments
+	 *
+	 * @return the number of listed arguments
+	 */
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Returns the argument at the provided index, parsing it if it hasn't been
+	 * read before
+	 *
+	 * @param index the index of the argument, as declared in the command's list
+	 *              of listed arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument could not be parsed
+	 */
+	public Object get(int index) throws WrapperCommandSyntaxException {
+		Object value = values[index];
+		if (value == UNRESOLVED) {
+			try {
+				value = extractors[index].extract(cmdCtx);
+			} catch (CommandSyntaxException e) {
+				throw new WrapperCommandSyntaxException(e);
+			}
+			values[index] = value;
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the argument at the provided index, cast to the type of the
+	 * variable that it is assigned to. For example:
+	 * 
+	 * <pre>
+	 * Player target = args.getUnchecked(0);
+	 * </pre>
+	 *
+	 * @param <T>   the type of the argument
+	 * @param index the index of the argument, as declared in the command's list
+	 *              of listed arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument could not be parsed
+	 */
+	public <T> T getUnchecked(int index) throws WrapperCommandSyntaxException {
+		return (T) get(index);
+	}
+
+	/**
+	 * Returns the argument at the provided index as a String
+	 *
+	 * @param index the index of the argument, as declared in the command's list
+	 *              of listed arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument could not be parsed
+	 */
+	public String getString(int index) throws WrapperCommandSyntaxException {
+		return (String) get(index);
+	}
+
+	/**
+	 * Returns the argument at the provided index as a boolean
+	 *
+	 * @param index the index of the argument, as declared in the command's list
+	 *              of listed arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument could not be parsed
+	 */
+	public boolean getBoolean(int index) throws WrapperCommandSyntaxException {
+		return (Boolean) get(index);
+	}
+
+	/**
+	 * Returns the argument at the provided index as an int. Numeric arguments are
+	 * read straight from the command context, without boxing them and without
+	 * remembering them.
+	 *
+	 * @param index the index of the argument, as declared in the command's list
+	 *              of listed arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument could not be parsed
+	 */
+	public int getInt(int index) throws WrapperCommandSyntaxException {
+		if (values[index] != UNRESOLVED) {
+			return ((Number) values[index]).intValue();
+		}
+		try {
+			return extractors[index].extractInt(cmdCtx);
+		} catch (CommandSyntaxException e) {
+			throw new WrapperCommandSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Returns the argument at the provided index as a long. Numeric arguments are
+	 * read straight from the command context, without boxing them and without
+	 * remembering them.
+	 *
+	 * @param index the index of the argument, as declared in the command's list
+	 *              of listed arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument could not be parsed
+	 */
+	public long getLong(int index) throws WrapperCommandSyntaxException {
+		if (values[index] != UNRESOLVED) {
+			return ((Number) values[index]).longValue();
+		}
+		try {
+			return extractors[index].extractLong(cmdCtx);
+		} catch (CommandSyntaxException e) {
+			throw new WrapperCommandSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Returns the argument at the provided index as a float. Numeric arguments
+	 * are read straight from the command context, without boxing them and
+	 * without remembering them.
+	 *
+	 * @param index the index of the argument, as declared in the command's list
+	 *              of listed arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument could not be parsed
+	 */
+	public float getFloat(int index) throws WrapperCommandSyntaxException {
+		if (values[index] != UNRESOLVED) {
+			return ((Number) values[index]).floatValue();
+		}
+		try {
+			return extractors[index].extractFloat(cmdCtx);
+		} catch (CommandSyntaxException e) {
+			throw new WrapperCommandSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Returns the argument at the provided index as a double. Numeric arguments
+	 * are read straight from the command context, without boxing them and
+	 * without remembering them.
+	 *
+	 * @param index the index of the argument, as declared in the command's list
+	 *              of listed arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument could not be parsed
+	 */
+	public double getDouble(int index) throws WrapperCommandSyntaxException {
+		if (values[index] != UNRESOLVED) {
+			return ((Number) values[index]).doubleValue();
+		}
+		try {
+			return extractors[index].extractDouble(cmdCtx);
+		} catch (CommandSyntaxException e) {
+			throw new WrapperCommandSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Parses every argument and returns them as an Object[]. Arguments which
+	 * resolve to null are omitted, the same as the Object[] provided to normal
+	 * command executors.
+	 *
+	 * @return an Object[] of every argument
+	 * @throws WrapperCommandSyntaxException if an argument could not be parsed
+	 */
+	public Object[] toArray() throws WrapperCommandSyntaxException {
+		if (extractors == null) {
+			return values;
+		}
+
+		Object[] result = new Object[values.length];
+		int size = 0;
+		for (int i = 0; i < values.length; i++) {
+			Object value = get(i);
+			if (value != null) {
+				result[size++] = value;
+			}
+		}
+		return size == result.length ? result : Arrays.copyOf(result, size);
+	}
+
+}
@@ -0,0 +1,177 @@
+package dev.jorel.commandapi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+/**
+ * Execution metrics for the commands registered by the CommandAPI. When the
+ * <code>command-metrics</code> option is enabled, every registered command
+ * path records how many times it was run, how many times it failed and how
+ * long it took. Recording only uses striped counters, so it never locks and is
+ * cheap enough to leave on.
+ * <p>
+ * Latencies are recorded in a fixed log-linear histogram of microseconds: the
+ * first 4 buckets are 1&micro;s wide, and every power of two after that is
+ * split into 4 equally sized buckets, up to roughly a minute.
+ */
+public final class CommandMetrics {
+	
+	// Each power of two is split into 2^SUB_BUCKET_BITS linear buckets
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	// The largest power of two (in microseconds) with its own buckets, 2^26us is just over a minute
+	private static final int MAX_EXPONENT = 26;
+	
+	static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+	
+	private static final Map<String, CommandMetrics> METRICS = new ConcurrentHashMap<>();
+	
+	// The metrics of the command running on this thread, so executors can report unexpected failures
+	private static final ThreadLocal<CommandMetrics> CURRENT = new ThreadLocal<>();
+	
+	private final String path;
+	private final LongAdder invocations;
+	private final LongAdder syntaxFailures;
+	private final LongAdder unexpectedFailures;
+	private final LongAdder totalNanos;
+	private final LongAdder[] buckets;
+	
+	private CommandMetrics(String path) {
+		this.path = path;
+		this.invocations = new LongAdder();
+		this.syntaxFailures = new LongAdder();
+		this.unexpectedFailures = new LongAdder();
+		this.totalNanos = new LongAdder();
+		this.buckets = new LongAdder[BUCKET_COUNT];
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			this.buckets[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * Wraps a command so that every execution is recorded against the provided
+	 * command path
+	 * 
+	 * @param <CommandListenerWrapper> the NMS command source type
+	 * @param path    the command path, such as <code>mycommand reload</code>
+	 * @param command the command to record
+	 * @return a command which runs the provided command and records its execution
+	 */
+	static <CommandListenerWrapper> Command<CommandListenerWrapper> instrument(String path, Command<CommandListenerWrapper> command) {
+		CommandMetrics metrics = METRICS.computeIfAbsent(path, CommandMetrics::new);
+		return cmdCtx -> {
+			CommandMetrics previous = CURRENT.get();
+			CURRENT.set(metrics);
+			long start = System.nanoTime();
+			try {
+				return command.run(cmdCtx);
+			} catch (CommandSyntaxException e) {
+				metrics.syntaxFailures.increment();
+				throw e;
+			} catch (RuntimeException e) {
+				metrics.unexpectedFailures.increment();
+				throw e;
+			} finally {
+				metrics.record(System.nanoTime() - start);
+				CURRENT.set(previous);
+			}
+		};
+	}
+	
+	/**
+	 * Records an unexpected exception that an executor caught and didn't
+	 * rethrow, against the command which is currently running on this thread
+	 */
+	static void recordUnexpectedFailure() {
+		CommandMetrics metrics = CURRENT.get();
+		if(metrics != null) {
+			metrics.unexpectedFailures.increment();
+		}
+	}
+	
+	private void record(long nanos) {
+		invocations.increment();
+		totalNanos.add(nanos);
+		buckets[bucketIndex(nanos / 1000L)].increment();
+	}
+	
+	static int bucketIndex(long micros) {
+		if(micros < SUB_BUCKETS) {
+			return (int) Math.max(0L, micros);
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		if(exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	/**
+	 * Returns the exclusive upper bound, in microseconds, of the provided
+	 * histogram bucket
+	 * 
+	 * @param index the index of the bucket
+	 * @return the exclusive upper bound of the bucket in microseconds
+	 */
+	static long bucketUpperBound(int index) {
+		if(index < SUB_BUCKETS) {
+			return index + 1L;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int subBucket = index % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+	}
+	
+	private CommandMetricsSnapshot snapshot() {
+		long[] counts = new long[BUCKET_COUNT];
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return new CommandMetricsSnapshot(path, invocations.sum(), syntaxFailures.sum(), unexpectedFailures.sum(),
+				totalNanos.sum(), counts);
+	}
+	
+	/**
+	 * Returns a snapshot of the metrics of every command path which has been
+	 * registered while metrics were enabled
+	 * 
+	 * @return a map of command paths to snapshots of their metrics
+	 */
+	public static Map<String, CommandMetricsSnapshot> getSnapshots() {
+		Map<String, CommandMetricsSnapshot> snapshots = new LinkedHashMap<>();
+		for(CommandMetrics metrics : METRICS.values()) {
+			snapshots.put(metrics.path, metrics.snapshot());
+		}
+		return Collections.unmodifiableMap(snapshots);
+	}
+	
+	/**
+	 * Returns a snapshot of the metrics of a single command path
+	 * 
+	 * @param path the command path, such as <code>mycommand reload</code>
+	 * @return a snapshot of the metrics of the provided command path, or null if
+	 *         no command with that path is being recorded
+	 */
+	public static CommandMetricsSnapshot getSnapshot(String path) {
+		CommandMetrics metrics = METRICS.get(path);
+		return metrics == null ? null : metrics.snapshot();
+	}
+	
+	/**
+	 * Returns whether command metrics are being recorded
+	 * 
+	 * @return true if the <code>command-metrics</code> option is enabled
+	 */
+	public static boolean isEnabled() {
+		return CommandAPI.getConfiguration() != null && CommandAPI.getConfiguration().hasCommandMetrics();
+	}
+	
+}
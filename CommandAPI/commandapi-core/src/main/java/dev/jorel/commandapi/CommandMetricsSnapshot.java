@@ -0,0 +1,136 @@
+package dev.jorel.commandapi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the execution metrics of a single command path.
+ * Since counters are read one after another without locking, a snapshot
+ * taken while the command is running may be off by the executions which were
+ * in progress.
+ */
+public class CommandMetricsSnapshot {
+	
+	private final String path;
+	private final long invocations;
+	private final long syntaxFailures;
+	private final long unexpectedFailures;
+	private final long totalNanos;
+	private final long[] bucketCounts;
+	
+	CommandMetricsSnapshot(String path, long invocations, long syntaxFailures, long unexpectedFailures,
+			long totalNanos, long[] bucketCounts) {
+		this.path = path;
+		this.invocations = invocations;
+		this.syntaxFailures = syntaxFailures;
+		this.unexpectedFailures = unexpectedFailures;
+		this.totalNanos = totalNanos;
+		this.bucketCounts = bucketCounts;
+	}
+	
+	/**
+	 * Returns the command path that these metrics were recorded for
+	 * @return the command path, such as <code>mycommand reload</code>
+	 */
+	public String getPath() {
+		return path;
+	}
+	
+	/**
+	 * Returns the number of times this command was run
+	 * @return the number of times this command was run
+	 */
+	public long getInvocations() {
+		return invocations;
+	}
+	
+	/**
+	 * Returns the number of times this command failed with a command syntax
+	 * exception, such as from <code>CommandAPI.fail()</code>
+	 * @return the number of times this command failed with a command syntax exception
+	 */
+	public long getSyntaxFailures() {
+		return syntaxFailures;
+	}
+	
+	/**
+	 * Returns the number of times this command failed with any other exception
+	 * @return the number of times this command failed with an unexpected exception
+	 */
+	public long getUnexpectedFailures() {
+		return unexpectedFailures;
+	}
+	
+	/**
+	 * Returns the total time spent running this command
+	 * @param unit the time unit to return the total time in
+	 * @return the total time spent running this command
+	 */
+	public long getTotalTime(TimeUnit unit) {
+		return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the mean time spent running this command
+	 * @param unit the time unit to return the mean time in
+	 * @return the mean time spent running this command, or 0 if it hasn't been run
+	 */
+	public double getMeanTime(TimeUnit unit) {
+		if(invocations == 0) {
+			return 0;
+		}
+		return (double) totalNanos / invocations / unit.toNanos(1);
+	}
+	
+	/**
+	 * Returns the number of histogram buckets
+	 * @return the number of histogram buckets
+	 */
+	public int getBucketCount() {
+		return bucketCounts.length;
+	}
+	
+	/**
+	 * Returns the number of executions which fell into a histogram bucket
+	 * @param index the index of the bucket
+	 * @return the number of executions in the bucket
+	 */
+	public long getBucketCount(int index) {
+		return bucketCounts[index];
+	}
+	
+	/**
+	 * Returns the exclusive upper bound of a histogram bucket in microseconds. The
+	 * last bucket also contains every execution which took longer than its bound
+	 * @param index the index of the bucket
+	 * @return the upper bound of the bucket in microseconds
+	 */
+	public long getBucketUpperBound(int index) {
+		return CommandMetrics.bucketUpperBound(index);
+	}
+	
+	/**
+	 * Estimates a percentile of this command's execution time, as the upper bound
+	 * of the histogram bucket that the percentile falls in
+	 * @param percentile the percentile to estimate, between 0 and 100
+	 * @return an upper bound of the percentile in microseconds, or 0 if the command hasn't been run
+	 */
+	public long getPercentileMicros(double percentile) {
+		long total = 0;
+		for(long count : bucketCounts) {
+			total += count;
+		}
+		if(total == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+		long seen = 0;
+		for(int i = 0; i < bucketCounts.length; i++) {
+			seen += bucketCounts[i];
+			if(seen >= Math.max(1L, target)) {
+				return getBucketUpperBound(i);
+			}
+		}
+		return getBucketUpperBound(bucketCounts.length - 1);
+	}
+	
+}
@@ -0,0 +1,346 @@
+package dev.jorel.commandapi;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+
+import dev.jorel.commandapi.arguments.Argument;
+import dev.jorel.commandapi.arguments.MultiLiteralArgument;
+
+/**
+ * Builds the command nodes of the CommandAPI's commands and merges them into a
+ * dispatcher's root node. The literals of a MultiLiteralArgument (and the name
+ * and aliases of a subcommand) share the same child nodes, so some nodes have
+ * more than one parent. Shared nodes are copied before anything is merged
+ * into them, so a command registered through one parent doesn't also appear
+ * under the others.
+ * <p>
+ * This doesn't depend on Bukkit or NMS. The nodes of each argument and the
+ * command that runs each branch are created by the provided factories.
+ *
+ * @param <Source> the command source type
+ */
+class CommandTree<Source> {
+
+	/**
+	 * Creates the builders for the nodes of an argument
+	 *
+	 * @param <Source> the command source type
+	 */
+	@FunctionalInterface
+	interface BuilderFactory<Source> {
+		/**
+		 * Creates the builders for the nodes of an argument, which is one builder
+		 * for each literal of a MultiLiteralArgument
+		 *
+		 * @param args the arguments of the command that the argument belongs to
+		 * @param arg  the argument
+		 * @return the builders for the argument's nodes
+		 */
+		List<ArgumentBuilder<Source, ?>> getArgumentBuilders(List<Argument> args, Argument arg);
+	}
+
+	/**
+	 * Creates the command that runs a branch of a command's tree
+	 *
+	 * @param <Source> the command source type
+	 */
+	@FunctionalInterface
+	interface CommandFactory<Source> {
+		/**
+		 * Creates the command that runs a branch of a command's tree
+		 *
+		 * @param args     the branch's arguments, including the literals of the subcommands that lead to it
+		 * @param executor the branch's executor
+		 * @return the command, or null if the branch can't be registered
+		 * @throws Exception if the command couldn't be created
+		 */
+		Command<Source> prepareCommand(List<Argument> args, CustomCommandExecutor executor) throws Exception;
+	}
+
+	private static final Field CHILDREN = getField("children");
+	private static final Field LITERALS = getField("literals");
+	private static final Field ARGUMENTS = getField("arguments");
+
+	private final RootCommandNode<Source> root;
+	private final BuilderFactory<Source> builderFactory;
+	private final Set<CommandNode<Source>> sharedNodes; //Nodes with more than one parent, which are copied before they're changed
+
+	CommandTree(RootCommandNode<Source> root, BuilderFactory<Source> builderFactory) {
+		this.root = root;
+		this.builderFactory = builderFactory;
+		this.sharedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	private static Field getField(String name) {
+		try {
+			Field field = CommandNode.class.getDeclaredField(name);
+			field.setAccessible(true);
+			return field;
+		} catch (NoSuchFieldException | SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Marks nodes as having more than one parent
+	 *
+	 * @param nodes the nodes that are also children of another node
+	 */
+	void share(Collection<CommandNode<Source>> nodes) {
+		sharedNodes.addAll(nodes);
+	}
+
+	/**
+	 * Builds the literal nodes of a subcommand. A subcommand with an executor
+	 * is followed by its arguments, and its own subcommands follow its last
+	 * argument, as if they were registered as
+	 * <code>/command subcommand &lt;arguments&gt; subsubcommand</code>. The
+	 * literals for the subcommand's name and aliases share the same child nodes
+	 *
+	 * @param root           the command that the subcommand is registered under
+	 * @param path           the arguments that lead to the subcommand
+	 * @param subcommand     the subcommand
+	 * @param commandFactory creates the command that runs each branch of the subcommand
+	 * @return the subcommand's literal nodes, or no nodes if nothing can be run
+	 *         through the subcommand
+	 * @throws Exception if a branch's command couldn't be created
+	 */
+	List<CommandNode<Source>> buildSubcommandNodes(CommandAPICommand root, List<Argument> path, CommandAPICommand subcommand,
+			CommandFactory<Source> commandFactory) throws Exception {
+		MultiLiteralArgument literal = toLiteral(subcommand);
+		path.add(literal);
+
+		List<Argument> args = path;
+		Command<Source> executable = null;
+		if (!subcommand.getExecutor().isEmpty()) {
+			// Subcommands get the permission of the command they're registered under, not their own
+			args = new ArrayList<>(path);
+			args.addAll(CommandAPICommand.checkArguments(subcommand.getArguments(), root.getPermission()));
+			executable = commandFactory.prepareCommand(args, subcommand.getExecutor());
+		}
+
+		List<CommandNode<Source>> children = new ArrayList<>();
+		for (CommandAPICommand subsubcommand : subcommand.getSubcommands()) {
+			children.addAll(buildSubcommandNodes(root, new ArrayList<>(args), subsubcommand, commandFactory));
+		}
+		if (args.size() > path.size()) {
+			// The subcommand's last argument executes it, not its literals
+			if (executable != null || !children.isEmpty()) {
+				children = buildArgumentNodes(args, path.size(), executable, children);
+			}
+			executable = null;
+		}
+		if (executable == null && children.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return buildNodes(builderFactory.getArgumentBuilders(path, literal), children, executable);
+	}
+
+	/**
+	 * Returns whether a subcommand or any of its own subcommands has a
+	 * MultiLiteralArgument
+	 *
+	 * @param subcommand the subcommand
+	 * @return true if a MultiLiteralArgument is one of the arguments in the subcommand's tree
+	 */
+	static boolean hasMultiLiteralArguments(CommandAPICommand subcommand) {
+		if (subcommand.getArguments() != null && subcommand.getArguments().stream().anyMatch(MultiLiteralArgument.class::isInstance)) {
+			return true;
+		}
+		return subcommand.getSubcommands().stream().anyMatch(CommandTree::hasMultiLiteralArguments);
+	}
+
+	/**
+	 * Creates the unlisted literal for a subcommand's name and aliases
+	 *
+	 * @param subcommand the subcommand
+	 * @return a MultiLiteralArgument of the subcommand's name and aliases
+	 */
+	static MultiLiteralArgument toLiteral(CommandAPICommand subcommand) {
+		String[] literals = new String[subcommand.getAliases().length + 1];
+		literals[0] = subcommand.getName();
+		System.arraycopy(subcommand.getAliases(), 0, literals, 1, subcommand.getAliases().length);
+		return (MultiLiteralArgument) new MultiLiteralArgument(literals)
+			.withPermission(subcommand.getPermission())
+			.withRequirement(subcommand.getRequirements())
+			.setListed(false);
+	}
+
+	/**
+	 * Builds the nodes of a command's arguments, starting from an argument. The
+	 * innermost argument needs to be connected to the executor. Then that
+	 * argument needs to be connected to the previous argument etc.
+	 *
+	 * Args1 -> Args2 -> ... -> ArgsN -> Executor
+	 *
+	 * Each argument's nodes are built once. A MultiLiteralArgument has a node for
+	 * each of its literals, which all share the same nodes for the following
+	 * arguments instead of each having their own copy of them
+	 *
+	 * @param args    the command's arguments
+	 * @param from    the index of the first argument to build nodes for
+	 * @param command the command to execute
+	 * @return the nodes of the first argument
+	 */
+	List<CommandNode<Source>> buildArgumentNodes(List<Argument> args, int from, Command<Source> command) {
+		return buildArgumentNodes(args, from, command, new ArrayList<>());
+	}
+
+	// Same as above, but the last argument's nodes also have the provided child nodes
+	private List<CommandNode<Source>> buildArgumentNodes(List<Argument> args, int from, Command<Source> command,
+			List<CommandNode<Source>> last) {
+		List<CommandNode<Source>> children = last;
+		for (int i = args.size() - 1; i >= from; i--) {
+			// Link the last element to the executor
+			children = buildNodes(builderFactory.getArgumentBuilders(args, args.get(i)), children, i == args.size() - 1 ? command : null);
+		}
+		return children;
+	}
+
+	// Builds a node from each builder, which all share the same child nodes
+	private List<CommandNode<Source>> buildNodes(List<ArgumentBuilder<Source, ?>> builders,
+			List<CommandNode<Source>> children, Command<Source> command) {
+		List<CommandNode<Source>> nodes = new ArrayList<>(builders.size());
+		for (ArgumentBuilder<Source, ?> builder : builders) {
+			if (command != null) {
+				builder.executes(command);
+			}
+			for (CommandNode<Source> child : children) {
+				builder.then(child);
+			}
+			nodes.add(builder.build());
+		}
+		if (nodes.size() > 1) {
+			sharedNodes.addAll(children);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Builds a literal with the provided child nodes
+	 *
+	 * @param builder  the literal's builder
+	 * @param children the literal's child nodes
+	 * @param command  the command to execute, or null if the literal can't be executed on its own
+	 * @return the literal's node
+	 */
+	LiteralCommandNode<Source> withChildren(LiteralArgumentBuilder<Source> builder, List<CommandNode<Source>> children, Command<Source> command) {
+		if (command != null) {
+			builder.executes(command);
+		}
+		for (CommandNode<Source> child : children) {
+			builder.then(child);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Adds a command's node to the root node. This merges the node into any
+	 * existing node of the same name in the same way as Brigadier does, except
+	 * that nodes shared between multiple parents are copied before anything is
+	 * merged into them. Otherwise, registering <code>/cmd a x y</code> after
+	 * <code>/cmd &lt;a|b&gt; x</code> would also create <code>/cmd b x y</code>.
+	 *
+	 * @param node the command's node
+	 * @return the root's node for the command, which the node was merged into
+	 */
+	@SuppressWarnings("unchecked")
+	LiteralCommandNode<Source> register(LiteralCommandNode<Source> node) {
+		if (CHILDREN == null || LITERALS == null || ARGUMENTS == null) {
+			// Fall back to Brigadier's merging
+			root.addChild(node);
+		} else {
+			try {
+				mergeNode(root, node);
+			} catch (IllegalArgumentException | IllegalAccessException e) {
+				root.addChild(node);
+			}
+		}
+		return (LiteralCommandNode<Source>) root.getChild(node.getName());
+	}
+
+	private void mergeNode(CommandNode<Source> parent, CommandNode<Source> node) throws IllegalArgumentException, IllegalAccessException {
+		CommandNode<Source> existing = parent.getChild(node.getName());
+		if (existing == null) {
+			parent.addChild(node);
+			return;
+		}
+		if (existing.getRedirect() != null) {
+			existing = unredirectNode(parent, existing);
+		} else if (sharedNodes.contains(existing)) {
+			existing = unshareNode(parent, existing);
+		}
+		if (sharedNodes.contains(node)) {
+			// The node's children are now also children of the existing node
+			sharedNodes.addAll(node.getChildren());
+		}
+
+		// Merges the node's command into the existing node without merging its children
+		parent.addChild(node.createBuilder().build());
+		for (CommandNode<Source> child : node.getChildren()) {
+			mergeNode(existing, child);
+		}
+	}
+
+	// Replaces a shared node with a copy of it, which has the same children as the shared node
+	private CommandNode<Source> unshareNode(CommandNode<Source> parent, CommandNode<Source> shared)
+			throws IllegalArgumentException, IllegalAccessException {
+		CommandNode<Source> copy = shared.createBuilder().build();
+		for (CommandNode<Source> child : shared.getChildren()) {
+			copy.addChild(child);
+		}
+		sharedNodes.addAll(shared.getChildren());
+		replaceChild(parent, copy);
+		return copy;
+	}
+
+	/**
+	 * Replaces a node that redirects with a node that doesn't, so nodes can be
+	 * merged into it. Brigadier ignores the children of a node that redirects, so
+	 * anything merged into it would never be reached. The replacement shares the
+	 * children of the node it redirected to, so everything that could be run
+	 * through the redirect can still be run. Nodes that fork back to the root,
+	 * such as <code>/execute run</code>, can't be replaced, since they can run any
+	 * command
+	 */
+	private CommandNode<Source> unredirectNode(CommandNode<Source> parent, CommandNode<Source> redirecting)
+			throws IllegalArgumentException, IllegalAccessException {
+		CommandNode<Source> target = redirecting.getRedirect();
+		if (target instanceof RootCommandNode) {
+			CommandAPI.getLog().warning("Arguments added to /" + redirecting.getName() + " can't be used, because it redirects to every command");
+			return redirecting;
+		}
+
+		ArgumentBuilder<Source, ?> builder = redirecting.createBuilder();
+		builder.redirect(null);
+		CommandNode<Source> copy = builder.build();
+		for (CommandNode<Source> child : target.getChildren()) {
+			copy.addChild(child);
+		}
+		sharedNodes.addAll(target.getChildren());
+		replaceChild(parent, copy);
+		return copy;
+	}
+
+	// Replaces a node's child of the same name, which addChild would merge into instead
+	@SuppressWarnings("unchecked")
+	private void replaceChild(CommandNode<Source> parent, CommandNode<Source> child) throws IllegalArgumentException, IllegalAccessException {
+		((Map<String, CommandNode<Source>>) CHILDREN.get(parent)).put(child.getName(), child);
+		Field kind = child instanceof LiteralCommandNode ? LITERALS : ARGUMENTS;
+		((Map<String, CommandNode<Source>>) kind.get(parent)).put(child.getName(), child);
+	}
+
+}
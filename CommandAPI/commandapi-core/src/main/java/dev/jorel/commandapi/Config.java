@@ -33,12 +33,52 @@ class Config {
 	
 	 private final List<String> commandsToConvert;
 	
+	// Maximum number of executions a converted command can fan out to, or -1 for no limit
+	private final int maxConvertedFanOut;
+	
+	// Spread large converted command fan-outs across ticks
+	private final boolean spreadConvertedFanOut;
+	
+	// Time in milliseconds each tick can spend running a spread fan-out
+	private final int convertedFanOutTickBudget;
+	
+	// Time in milliseconds an asynchronous command can run for before it fails, or 0 for no limit
+	private final long asyncExecutorTimeout;
+	
+	// Record per-command execution metrics
+	private final boolean commandMetrics;
+	
+	// Maximum number of suggestions an argument sends, or 0 for no limit
+	private final int maxSuggestions;
+	
+	// Coalesce bursts of tab-complete requests from the same player
+	private final boolean coalesceSuggestions;
+	
+	// Time in milliseconds to wait for a newer tab-complete request before computing suggestions
+	private final long suggestionCoalesceWindow;
+	
+	// Maximum number of tab-complete requests per second for each player, or 0 for no limit
+	private final int suggestionRateLimit;
+	
+	// Maximum number of tab-complete requests per second for the whole server, or 0 for no limit
+	private final int globalSuggestionRateLimit;
+	
 	public Config(FileConfiguration fileConfig) {
 		this.verboseOutput = fileConfig.getBoolean("verbose-outputs");
 		this.createDispatcherFile = fileConfig.getBoolean("create-dispatcher-json");
 		this.pluginsToConvert = new HashMap<>();
 		this.skipSenderProxy = new ArrayList<>();
 		this.commandsToConvert = new ArrayList<>();
+		this.maxConvertedFanOut = fileConfig.getInt("max-converted-fanout", -1);
+		this.spreadConvertedFanOut = fileConfig.getBoolean("spread-converted-fanout", false);
+		this.convertedFanOutTickBudget = fileConfig.getInt("converted-fanout-tick-budget", 5);
+		this.asyncExecutorTimeout = fileConfig.getLong("async-executor-timeout", 30000L);
+		this.commandMetrics = fileConfig.getBoolean("command-metrics", false);
+		this.maxSuggestions = fileConfig.getInt("max-suggestions", 0);
+		this.coalesceSuggestions = fileConfig.getBoolean("coalesce-suggestions", false);
+		this.suggestionCoalesceWindow = fileConfig.getLong("suggestion-coalesce-window", 0L);
+		this.suggestionRateLimit = fileConfig.getInt("suggestion-rate-limit", 0);
+		this.globalSuggestionRateLimit = fileConfig.getInt("global-suggestion-rate-limit", 0);
 
 		for (Map<?, ?> map : fileConfig.getMapList("plugins-to-convert")) {
 			String[] pluginCommands;
@@ -79,6 +119,16 @@ class Config {
 		this.pluginsToConvert = new HashMap<>();
 		this.skipSenderProxy = new ArrayList<>();
 		this.commandsToConvert = new ArrayList<>();
+		this.maxConvertedFanOut = -1;
+		this.spreadConvertedFanOut = false;
+		this.convertedFanOutTickBudget = 5;
+		this.asyncExecutorTimeout = 30000L;
+		this.commandMetrics = false;
+		this.maxSuggestions = 0;
+		this.coalesceSuggestions = false;
+		this.suggestionCoalesceWindow = 0L;
+		this.suggestionRateLimit = 0;
+		this.globalSuggestionRateLimit = 0;
 	}
 
 	public Config(CommandAPIConfig config) {
@@ -87,6 +137,16 @@ class Config {
 		this.pluginsToConvert = new HashMap<>();
 		this.skipSenderProxy = new ArrayList<>();
 		this.commandsToConvert = new ArrayList<>();
+		this.maxConvertedFanOut = -1;
+		this.spreadConvertedFanOut = false;
+		this.convertedFanOutTickBudget = 5;
+		this.asyncExecutorTimeout = config.asyncExecutorTimeout;
+		this.commandMetrics = config.commandMetrics;
+		this.maxSuggestions = config.maxSuggestions;
+		this.coalesceSuggestions = config.coalesceSuggestions;
+		this.suggestionCoalesceWindow = config.suggestionCoalesceWindow;
+		this.suggestionRateLimit = config.suggestionRateLimit;
+		this.globalSuggestionRateLimit = config.globalSuggestionRateLimit;
 	}
 
 	public boolean hasVerboseOutput() {
@@ -112,5 +172,45 @@ class Config {
 	public List<String> getCommandsToConvert() {
 		return this.commandsToConvert;
 	}
+	
+	public int getMaxConvertedFanOut() {
+		return this.maxConvertedFanOut;
+	}
+	
+	public boolean shouldSpreadConvertedFanOut() {
+		return this.spreadConvertedFanOut;
+	}
+	
+	public int getConvertedFanOutTickBudget() {
+		return this.convertedFanOutTickBudget;
+	}
+	
+	public long getAsyncExecutorTimeout() {
+		return this.asyncExecutorTimeout;
+	}
+	
+	public boolean hasCommandMetrics() {
+		return this.commandMetrics;
+	}
+	
+	public int getMaxSuggestions() {
+		return this.maxSuggestions;
+	}
+	
+	public boolean shouldCoalesceSuggestions() {
+		return this.coalesceSuggestions;
+	}
+	
+	public long getSuggestionCoalesceWindow() {
+		return this.suggestionCoalesceWindow;
+	}
+	
+	public int getSuggestionRateLimit() {
+		return this.suggestionRateLimit;
+	}
+	
+	public int getGlobalSuggestionRateLimit() {
+		return this.globalSuggestionRateLimit;
+	}
 
 }
\ No newline at end of file
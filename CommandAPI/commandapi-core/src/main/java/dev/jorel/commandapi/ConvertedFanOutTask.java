@@ -0,0 +1,113 @@
+package dev.jorel.commandapi;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+/**
+ * Runs the combinations of a converted command's entity selectors in batches
+ * across consecutive ticks, so a large fan-out (such as
+ * <code>/mycommand @e @e</code>) doesn't stall a single tick. Each batch runs
+ * until it has spent its per-tick time budget.
+ * <p>
+ * If the sender is a player who leaves before every combination has run, the
+ * remaining combinations are never run, and no summary is sent.
+ */
+class ConvertedFanOutTask extends BukkitRunnable {
+
+	private final String commandName;
+	private final CommandSender sender;
+	private final CustomCommandExecutor executor;
+	private final CartesianProduct product;
+	private final String[] args;
+	private final long budgetNanos;
+
+	private int resultValue;
+	private long executions;
+
+	ConvertedFanOutTask(String commandName, CommandSender sender, CustomCommandExecutor executor,
+			CartesianProduct product, String[] args, int budgetMillis) {
+		this.commandName = commandName;
+		this.sender = sender;
+		this.executor = executor;
+		this.product = product;
+		this.args = args;
+		this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+		this.resultValue = 0;
+		this.executions = 0;
+	}
+
+	/**
+	 * Runs combinations until every combination has been run, or until this
+	 * tick's time budget has been spent
+	 *
+	 * @return true if every combination has been run
+	 * @throws CommandSyntaxException if the executor fails
+	 */
+	private boolean runBatch() throws CommandSyntaxException {
+		long deadline = System.nanoTime() + budgetNanos;
+		while (product.next()) {
+			resultValue += executor.execute(sender, args);
+			executions++;
+			if (System.nanoTime() - deadline >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the first batch of this fan-out, and continues running it on the
+	 * following ticks if the first batch doesn't run every combination
+	 *
+	 * @param plugin the plugin to schedule the remaining batches with
+	 * @return the sum of the results of the combinations in the first batch
+	 * @throws CommandSyntaxException if the executor fails
+	 */
+	int start(Plugin plugin) throws CommandSyntaxException {
+		if (runBatch()) {
+			finish();
+		} else {
+			runTaskTimer(plugin, 1L, 1L);
+		}
+		return resultValue;
+	}
+
+	@Override
+	public void run() {
+		// The sender can't run anything once they've left
+		if (!isOnline()) {
+			cancel();
+			return;
+		}
+		try {
+			if (runBatch()) {
+				cancel();
+				finish();
+			}
+		} catch (CommandSyntaxException e) {
+			cancel();
+			if (isOnline()) {
+				sender.sendMessage(ChatColor.RED + e.getMessage());
+			}
+		}
+	}
+
+	// Reports the total result of every combination to the sender
+	private void finish() {
+		if (isOnline()) {
+			sender.sendMessage("Finished running /" + commandName + " " + executions + " times with a result of " + resultValue);
+		}
+	}
+
+	// Players who have left since the command was run aren't sent anything
+	private boolean isOnline() {
+		return !(sender instanceof Player) || ((Player) sender).isOnline();
+	}
+}
@@ -2,6 +2,10 @@ package dev.jorel.commandapi;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
 
 import org.bukkit.command.BlockCommandSender;
 import org.bukkit.command.CommandSender;
@@ -16,18 +20,32 @@ import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 
 import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
 import dev.jorel.commandapi.executors.ExecutorType;
+import dev.jorel.commandapi.executors.IExecutorAsync;
 import dev.jorel.commandapi.executors.IExecutorNormal;
 import dev.jorel.commandapi.executors.IExecutorResulting;
 import dev.jorel.commandapi.executors.IExecutorTyped;
+import dev.jorel.commandapi.executors.ILazyExecutorNormal;
+import dev.jorel.commandapi.executors.ILazyExecutorResulting;
 
 class CustomCommandExecutor {
 	
 	private List<IExecutorNormal<? extends CommandSender>> normalExecutors;
 	private List<IExecutorResulting<? extends CommandSender>> resultingExecutors;
+	private List<IExecutorAsync<? extends CommandSender>> asyncExecutors;
+	
+	// Built from the executors the first time this executor is run, and reset whenever the executors change
+	private volatile DispatchTable dispatchTable;
+	
+	// Limits how many asynchronous executions of this command can run at once, or null for no limit
+	private Semaphore asyncPermits;
+	
+	// Receives the results of asynchronous executions on the server thread, or null
+	private BiConsumer<CommandSender, Integer> asyncResultHandler;
 	
 	public CustomCommandExecutor() {
 		normalExecutors = new ArrayList<>();
 		resultingExecutors = new ArrayList<>();
+		asyncExecutors = new ArrayList<>();
 	}
 	
 	CustomCommandExecutor mergeExecutor(CustomCommandExecutor executor) {
@@ -36,23 +54,54 @@ class CustomCommandExecutor {
 		result.resultingExecutors = new ArrayList<>(resultingExecutors);
 		result.normalExecutors.addAll(executor.normalExecutors);
 		result.resultingExecutors.addAll(executor.resultingExecutors);
+		result.asyncExecutors = new ArrayList<>(asyncExecutors);
+		result.asyncExecutors.addAll(executor.asyncExecutors);
+		result.asyncPermits = asyncPermits;
+		result.asyncResultHandler = asyncResultHandler;
 		return result;
 	}
 	
 	public void addNormalExecutor(IExecutorNormal<? extends CommandSender> ex) {
 		this.normalExecutors.add(ex);
+		this.dispatchTable = null;
 	}
 	
 	public void addResultingExecutor(IExecutorResulting<? extends CommandSender> rEx) {
 		this.resultingExecutors.add(rEx);
+		this.dispatchTable = null;
+	}
+	
+	public void addAsyncExecutor(IExecutorAsync<? extends CommandSender> aEx) {
+		this.asyncExecutors.add(aEx);
+		this.dispatchTable = null;
+	}
+	
+	/**
+	 * Sets the function which receives the result of each asynchronous execution
+	 * of this command. It is called on the server thread once the executor has
+	 * finished successfully
+	 * @param handler the function which receives the sender and the result
+	 */
+	public void setAsyncResultHandler(BiConsumer<CommandSender, Integer> handler) {
+		this.asyncResultHandler = handler;
+	}
+	
+	/**
+	 * Limits how many asynchronous executions of this command can be running at
+	 * once. Further executions fail until a running execution finishes
+	 * @param limit the maximum number of concurrent executions, or a value less
+	 *              than 1 for no limit
+	 */
+	public void setAsyncConcurrencyLimit(int limit) {
+		this.asyncPermits = limit < 1 ? null : new Semaphore(limit);
 	}
 	
 	public boolean isEmpty() {
-		return normalExecutors.isEmpty() && resultingExecutors.isEmpty();
+		return normalExecutors.isEmpty() && resultingExecutors.isEmpty() && asyncExecutors.isEmpty();
 	}
 	
 	public boolean isForceNative() {
-		return matches(normalExecutors, ExecutorType.NATIVE) || matches(resultingExecutors, ExecutorType.NATIVE);
+		return getDispatchTable().forceNative;
 	}
 	
 	public List<IExecutorNormal<? extends CommandSender>> getNormalExecutors() {
@@ -61,6 +110,7 @@ class CustomCommandExecutor {
 
 	public void setNormalExecutors(List<IExecutorNormal<? extends CommandSender>> normalExecutors) {
 		this.normalExecutors = normalExecutors;
+		this.dispatchTable = null;
 	}
 
 	public List<IExecutorResulting<? extends CommandSender>> getResultingExecutors() {
@@ -69,61 +119,196 @@ class CustomCommandExecutor {
 
 	public void setResultingExecutors(List<IExecutorResulting<? extends CommandSender>> resultingExecutors) {
 		this.resultingExecutors = resultingExecutors;
+		this.dispatchTable = null;
+	}
+	
+	public List<IExecutorAsync<? extends CommandSender>> getAsyncExecutors() {
+		return asyncExecutors;
+	}
+	
+	public void setAsyncExecutors(List<IExecutorAsync<? extends CommandSender>> asyncExecutors) {
+		this.asyncExecutors = asyncExecutors;
+		this.dispatchTable = null;
 	}
 	
 	public int execute(CommandSender sender, Object[] arguments) throws CommandSyntaxException {
+		return execute(sender, select(sender), arguments, null);
+	}
+	
+	public int execute(CommandSender sender, CommandArguments arguments) throws CommandSyntaxException {
+		return execute(sender, select(sender), null, arguments);
+	}
+	
+	/**
+	 * Executes an executor that has already been selected for a sender with
+	 * {@link #select(CommandSender)}, with arguments that have already been parsed
+	 * @param sender the command sender
+	 * @param executor the selected executor
+	 * @param arguments the parsed arguments
+	 * @return the result of the executor
+	 * @throws CommandSyntaxException if the executor fails
+	 */
+	int execute(CommandSender sender, IExecutorTyped executor, Object[] arguments) throws CommandSyntaxException {
+		return execute(sender, executor, arguments, null);
+	}
+	
+	/**
+	 * Executes a lazy executor that has already been selected for a sender with
+	 * {@link #select(CommandSender)}
+	 * @param sender the command sender
+	 * @param executor the selected executor
+	 * @param arguments the arguments, which are parsed when the executor reads them
+	 * @return the result of the executor
+	 * @throws CommandSyntaxException if the executor fails
+	 */
+	int execute(CommandSender sender, IExecutorTyped executor, CommandArguments arguments) throws CommandSyntaxException {
+		return execute(sender, executor, null, arguments);
+	}
+	
+	/**
+	 * Selects the executor that handles a sender
+	 * @param sender the command sender
+	 * @return the executor for the sender
+	 * @throws CommandSyntaxException if this command has no executor for the sender
+	 */
+	IExecutorTyped select(CommandSender sender) throws CommandSyntaxException {
+		try {
+			return getDispatchTable().select(sender);
+		} catch (WrapperCommandSyntaxException e) {
+			throw e.getException();
+		}
+	}
+	
+	/**
+	 * Returns whether an executor reads its arguments lazily, so they should only
+	 * be parsed when they are read
+	 * @param executor the executor
+	 * @return true if the executor takes a {@link CommandArguments}
+	 */
+	static boolean isLazy(IExecutorTyped executor) {
+		return executor instanceof ILazyExecutorNormal || executor instanceof ILazyExecutorResulting;
+	}
+	
+	// Exactly one of parsed and lazy is not null
+	private int execute(CommandSender sender, IExecutorTyped executor, Object[] parsed, CommandArguments lazy) throws CommandSyntaxException {
+		try {
+			if(executor instanceof IExecutorAsync) {
+				// Arguments are parsed here, since parsing them can read the world
+				Object[] args = parsed == null ? lazy.toArray() : parsed;
+				Semaphore permits = this.asyncPermits;
+				if(permits != null && !permits.tryAcquire()) {
+					throw new WrapperCommandSyntaxException(new SimpleCommandExceptionType(new LiteralMessage(
+							"This command is already running as many times as it can, try again later")).create());
+				}
+				BiConsumer<CommandSender, Integer> handler = this.asyncResultHandler;
+				AsyncCommandRunner.submit(sender, (IExecutorAsync<?>) executor, args, permits).thenAccept(result -> {
+					if(handler != null) {
+						handler.accept(sender, result);
+					}
+				});
+				return 1;
+			}
+			return parsed == null ? executor.executeWith(sender, lazy) : executor.executeWith(sender, parsed);
+		} catch (WrapperCommandSyntaxException e) {
+			throw e.getException();
+		} catch (Exception e) {
+			CommandMetrics.recordUnexpectedFailure();
+			e.printStackTrace(System.out);
+			return 0;
+		}
+	}
+	
+	private DispatchTable getDispatchTable() {
+		DispatchTable table = this.dispatchTable;
+		if(table == null) {
+			table = new DispatchTable(normalExecutors, resultingExecutors, asyncExecutors);
+			this.dispatchTable = table;
+		}
+		return table;
+	}
+	
+	/**
+	 * A lookup table from the kind of a command sender to the executor that
+	 * handles it. Resulting executors take precedence over normal executors, and
+	 * the executor for a given sender class is cached after its first lookup.
+	 * Asynchronous executors handle the kinds of sender that no synchronous
+	 * executor handles, so adding one never hides a synchronous executor
+	 */
+	private static class DispatchTable {
+		
+		private final boolean forceNative;
+		
+		// The first executor for each ExecutorType, indexed by ExecutorType.ordinal()
+		private final IExecutorTyped[] executors;
+		private final Map<Class<?>, IExecutorTyped> senderCache;
+		
+		DispatchTable(List<? extends IExecutorTyped> normalExecutors, List<? extends IExecutorTyped> resultingExecutors,
+				List<? extends IExecutorTyped> asyncExecutors) {
+			this.forceNative = matches(normalExecutors, ExecutorType.NATIVE) || matches(resultingExecutors, ExecutorType.NATIVE)
+					|| matches(asyncExecutors, ExecutorType.NATIVE);
+			this.executors = new IExecutorTyped[ExecutorType.values().length];
+			this.senderCache = new ConcurrentHashMap<>();
+			
+			for(IExecutorTyped executor : resultingExecutors.isEmpty() ? normalExecutors : resultingExecutors) {
+				if(executors[executor.getType().ordinal()] == null) {
+					executors[executor.getType().ordinal()] = executor;
+				}
+			}
+			
+			boolean[] synchronous = new boolean[executors.length];
+			for(int i = 0; i < executors.length; i++) {
+				synchronous[i] = executors[i] != null;
+			}
+			for(IExecutorTyped executor : asyncExecutors) {
+				int index = executor.getType().ordinal();
+				if(executors[index] == null) {
+					executors[index] = executor;
+				} else if(synchronous[index]) {
+					CommandAPI.getLog().warning("An asynchronous executor for " + executor.getType().name().toLowerCase()
+							+ " senders is ignored, because the command already has a synchronous executor for them");
+				}
+			}
+		}
+		
+		private static boolean matches(List<? extends IExecutorTyped> executors, ExecutorType type) {
+			for(IExecutorTyped executor : executors) {
+				if(executor.getType() == type) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		IExecutorTyped select(CommandSender sender) throws WrapperCommandSyntaxException {
+			IExecutorTyped executor = forceNative ? executors[ExecutorType.NATIVE.ordinal()] : senderCache.get(sender.getClass());
+			if(executor == null && !forceNative) {
+				executor = lookup(sender);
+				if(executor != null) {
+					senderCache.put(sender.getClass(), executor);
+				}
+			}
+			if(executor == null) {
+				throw new WrapperCommandSyntaxException(new SimpleCommandExceptionType(new LiteralMessage(
+						"This command has no implementations for " + sender.getClass().getSimpleName().toLowerCase()))
+								.create());
+			}
+			return executor;
+		}
 		
-		//Parse executor type
-        if (!resultingExecutors.isEmpty()) {
-            //Run resulting executor
-            try {
-                return execute(resultingExecutors, sender, arguments);
-            } catch (WrapperCommandSyntaxException e) {
-                throw e.getException();
-            } catch (Exception e) {
-                e.printStackTrace(System.out);
-                return 0;
-            }
-        } else {
-            //Run normal executor
-            try {
-                return execute(normalExecutors, sender, arguments);
-            } catch (WrapperCommandSyntaxException e) {
-                throw e.getException();
-            } catch (Exception e) {
-                e.printStackTrace(System.out);
-                return 0;
-            }
-        }
-	}
-	
-	private int execute(List<? extends IExecutorTyped> executors, CommandSender sender, Object[] args, ExecutorType type) throws WrapperCommandSyntaxException {
-		return executors.stream().filter(o -> o.getType() == type).findFirst().get().executeWith(sender, args);
-	}
-	
-	private boolean matches(List<? extends IExecutorTyped> executors, ExecutorType type) {
-		return executors.stream().map(IExecutorTyped::getType).anyMatch(type::equals);
-	}
-	
-	private int execute(List<? extends IExecutorTyped> executors, CommandSender sender, Object[] args) throws WrapperCommandSyntaxException {
-		if(isForceNative()) {
-			return execute(executors, sender, args, ExecutorType.NATIVE);
-		} else if (sender instanceof Player && matches(executors, ExecutorType.PLAYER)) {
-			return execute(executors, sender, args, ExecutorType.PLAYER);
-		} else if (sender instanceof Entity && matches(executors, ExecutorType.ENTITY)) {
-			return execute(executors, sender, args, ExecutorType.ENTITY);
-		} else if (sender instanceof ConsoleCommandSender && matches(executors, ExecutorType.CONSOLE)) {
-			return execute(executors, sender, args, ExecutorType.CONSOLE);
-		} else if (sender instanceof BlockCommandSender && matches(executors, ExecutorType.BLOCK)) {
-			return execute(executors, sender, args, ExecutorType.BLOCK);
-		} else if (sender instanceof ProxiedCommandSender && matches(executors, ExecutorType.PROXY)) {
-			return execute(executors, sender, args, ExecutorType.PROXY);
-		} else if (matches(executors, ExecutorType.ALL)) {
-			return execute(executors, sender, args, ExecutorType.ALL);
-		} else {
-			throw new WrapperCommandSyntaxException(new SimpleCommandExceptionType(new LiteralMessage(
-					"This command has no implementations for " + sender.getClass().getSimpleName().toLowerCase()))
-							.create());
+		private IExecutorTyped lookup(CommandSender sender) {
+			if (sender instanceof Player && executors[ExecutorType.PLAYER.ordinal()] != null) {
+				return executors[ExecutorType.PLAYER.ordinal()];
+			} else if (sender instanceof Entity && executors[ExecutorType.ENTITY.ordinal()] != null) {
+				return executors[ExecutorType.ENTITY.ordinal()];
+			} else if (sender instanceof ConsoleCommandSender && executors[ExecutorType.CONSOLE.ordinal()] != null) {
+				return executors[ExecutorType.CONSOLE.ordinal()];
+			} else if (sender instanceof BlockCommandSender && executors[ExecutorType.BLOCK.ordinal()] != null) {
+				return executors[ExecutorType.BLOCK.ordinal()];
+			} else if (sender instanceof ProxiedCommandSender && executors[ExecutorType.PROXY.ordinal()] != null) {
+				return executors[ExecutorType.PROXY.ordinal()];
+			} else {
+				return executors[ExecutorType.ALL.ordinal()];
+			}
 		}
 	}
-}
\ No newline at end of file
+}
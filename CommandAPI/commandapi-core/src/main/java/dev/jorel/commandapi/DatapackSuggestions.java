@@ -0,0 +1,187 @@
+package dev.jorel.commandapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.plugin.Plugin;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import dev.jorel.commandapi.arguments.ICustomProvidedArgument.SuggestionProviders;
+
+/**
+ * A suggestion provider for namespaced keys which only change when datapacks
+ * are reloaded, such as functions, advancements and loot tables. The first
+ * request after a reload asks the NMS suggestion provider for every key once,
+ * and every other request searches a sorted snapshot of those keys.
+ * <p>
+ * Keys are matched the same way as Minecraft matches them: by their full
+ * <code>namespace:path</code> form, or by their path alone if their namespace
+ * is <code>minecraft</code>. Tags keep their <code>#</code> prefix.
+ * <p>
+ * Snapshots are made stale by {@link CommandAPI#reloadDatapacks()} and by the
+ * <code>/reload</code> and <code>/datapack</code> commands. Datapacks can be
+ * reloaded over several ticks, so for a few seconds after one of those commands
+ * suggestions come straight from the NMS suggestion provider. Reloads that don't
+ * go through those commands, such as a function that runs <code>/reload</code>
+ * or another plugin calling <code>Bukkit.reloadData()</code>, aren't noticed
+ * until <code>CommandAPI.reloadDatapacks()</code> is called.
+ */
+class DatapackSuggestions<CommandListenerWrapper> implements SuggestionProvider<CommandListenerWrapper> {
+
+	private static final String MINECRAFT_NAMESPACE = "minecraft:";
+	private static final String MINECRAFT_TAG_NAMESPACE = "#minecraft:";
+
+	// Incremented every time datapacks are reloaded, which makes every snapshot stale
+	private static final AtomicInteger GENERATION = new AtomicInteger();
+
+	// How long snapshots aren't made for after a command that reloads datapacks
+	private static final long RELOAD_NANOS = TimeUnit.SECONDS.toNanos(10);
+	private static volatile long reloadingUntil = System.nanoTime();
+
+	/**
+	 * Returns whether the keys suggested by an NMS suggestion provider only
+	 * change when datapacks are reloaded
+	 *
+	 * @param provider the NMS suggestion provider
+	 * @return true if the provider's suggestions can be snapshotted
+	 */
+	static boolean isDatapackBacked(SuggestionProviders provider) {
+		switch (provider) {
+		case FUNCTION:
+		case ADVANCEMENTS:
+		case LOOT_TABLES:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Makes every snapshot stale, so they are rebuilt the next time they are
+	 * used. This is called whenever datapacks are reloaded
+	 */
+	static void invalidate() {
+		GENERATION.incrementAndGet();
+	}
+
+	/**
+	 * Makes every snapshot stale whenever a player or the console runs a command
+	 * that reloads datapacks
+	 *
+	 * @param plugin the plugin to register the listener for
+	 */
+	static void enable(Plugin plugin) {
+		Bukkit.getServer().getPluginManager().registerEvents(new Listener() {
+			@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+			public void onPlayerCommand(PlayerCommandPreprocessEvent e) {
+				onCommand(e.getMessage());
+			}
+
+			@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+			public void onServerCommand(ServerCommandEvent e) {
+				onCommand(e.getCommand());
+			}
+		}, plugin);
+	}
+
+	private static void onCommand(String command) {
+		String label = command.startsWith("/") ? command.substring(1) : command;
+		int space = label.indexOf(' ');
+		if (space >= 0) {
+			label = label.substring(0, space);
+		}
+		label = label.substring(label.indexOf(':') + 1).toLowerCase(Locale.ROOT);
+		if (label.equals("reload") || label.equals("datapack")) {
+			reloadingUntil = System.nanoTime() + RELOAD_NANOS;
+			invalidate();
+		}
+	}
+
+	private static class Snapshot {
+		final int generation;
+		final PrefixIndexedSuggestions keys;
+		final PrefixIndexedSuggestions paths;
+
+		Snapshot(int generation, Suggestions suggestions) {
+			this.generation = generation;
+
+			List<IStringTooltip> all = new ArrayList<>();
+			List<String> allKeys = new ArrayList<>();
+			List<IStringTooltip> minecraft = new ArrayList<>();
+			List<String> minecraftPaths = new ArrayList<>();
+			for (Suggestion suggestion : suggestions.getList()) {
+				String text = suggestion.getText();
+				IStringTooltip tooltip = suggestion.getTooltip() == null ? StringTooltip.none(text)
+						: StringTooltip.of(text, suggestion.getTooltip().getString());
+				all.add(tooltip);
+				allKeys.add(text.toLowerCase(Locale.ROOT));
+
+				// Keys in the minecraft namespace can also be found by their path
+				if (text.startsWith(MINECRAFT_NAMESPACE)) {
+					minecraft.add(tooltip);
+					minecraftPaths.add(text.substring(MINECRAFT_NAMESPACE.length()).toLowerCase(Locale.ROOT));
+				} else if (text.startsWith(MINECRAFT_TAG_NAMESPACE)) {
+					minecraft.add(tooltip);
+					minecraftPaths.add("#" + text.substring(MINECRAFT_TAG_NAMESPACE.length()).toLowerCase(Locale.ROOT));
+				}
+			}
+			this.keys = new PrefixIndexedSuggestions(allKeys.toArray(new String[0]), all.toArray(new IStringTooltip[0]));
+			this.paths = new PrefixIndexedSuggestions(minecraftPaths.toArray(new String[0]), minecraft.toArray(new IStringTooltip[0]));
+		}
+
+		CompletableFuture<Suggestions> suggest(SuggestionsBuilder builder) {
+			String remaining = builder.getRemaining().toLowerCase(Locale.ROOT);
+			keys.addMatches(builder, remaining, SuggestionLimit.NONE);
+
+			// If the input could still be the start of the minecraft namespace, every
+			// key in it has already matched by its full form
+			if (remaining.indexOf(':') < 0 && !MINECRAFT_NAMESPACE.startsWith(remaining)
+					&& !MINECRAFT_TAG_NAMESPACE.startsWith(remaining)) {
+				paths.addMatches(builder, remaining, SuggestionLimit.NONE);
+			}
+			return builder.buildFuture();
+		}
+	}
+
+	private final SuggestionProvider<CommandListenerWrapper> source;
+	private volatile Snapshot snapshot;
+
+	DatapackSuggestions(SuggestionProvider<CommandListenerWrapper> source) {
+		this.source = source;
+		this.snapshot = null;
+	}
+
+	@Override
+	public CompletableFuture<Suggestions> getSuggestions(CommandContext<CommandListenerWrapper> context,
+			SuggestionsBuilder builder) throws CommandSyntaxException {
+		if (System.nanoTime() - reloadingUntil < 0) {
+			// Datapacks may still be reloading, so a snapshot could miss the new keys
+			return source.getSuggestions(context, builder);
+		}
+		Snapshot current = this.snapshot;
+		int generation = GENERATION.get();
+		if (current == null || current.generation != generation) {
+			// With no input, the NMS suggestion provider suggests every key
+			current = new Snapshot(generation, source.getSuggestions(context, new SuggestionsBuilder("", 0)).join());
+			this.snapshot = current;
+		}
+		return current.suggest(builder);
+	}
+
+}
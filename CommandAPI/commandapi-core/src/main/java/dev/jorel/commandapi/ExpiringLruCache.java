@@ -0,0 +1,100 @@
+package dev.jorel.commandapi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A size-bounded cache whose entries expire a fixed time after they were
+ * added. Once the cache is full, the least recently used entry is evicted.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+class ExpiringLruCache<K, V> {
+	
+	private static class Entry<V> {
+		final V value;
+		final long expiresAt;
+		
+		Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+	
+	private final long ttlNanos;
+	private final LinkedHashMap<K, Entry<V>> entries;
+	
+	ExpiringLruCache(long ttlNanos, int maxSize) {
+		this.ttlNanos = ttlNanos;
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the value for a key, if it was added and hasn't expired yet
+	 * 
+	 * @param key the key to look up
+	 * @return the value for the key, or null if there is no unexpired value
+	 */
+	synchronized V get(K key) {
+		Entry<V> entry = entries.get(key);
+		if(entry == null) {
+			return null;
+		}
+		if(System.nanoTime() - entry.expiresAt >= 0) {
+			entries.remove(key);
+			return null;
+		}
+		return entry.value;
+	}
+	
+	/**
+	 * Returns the value for a key, computing and adding it if there is no
+	 * unexpired value. The value is looked up and added under the same lock, so
+	 * concurrent calls for the same key only compute the value once
+	 * 
+	 * @param key      the key to look up
+	 * @param function the function which computes a value for the key
+	 * @return the value for the key
+	 */
+	synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+		V value = get(key);
+		if(value == null) {
+			value = function.apply(key);
+			put(key, value);
+		}
+		return value;
+	}
+	
+	/**
+	 * Adds a value for a key, replacing any previous value
+	 * 
+	 * @param key   the key to add the value for
+	 * @param value the value to add
+	 */
+	synchronized void put(K key, V value) {
+		entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+	}
+	
+	/**
+	 * Removes the value for a key, but only if it's the provided value
+	 * 
+	 * @param key   the key to remove the value for
+	 * @param value the value to remove
+	 */
+	synchronized void remove(K key, V value) {
+		Entry<V> entry = entries.get(key);
+		if(entry != null && entry.value == value) {
+			entries.remove(key);
+		}
+	}
+	
+}
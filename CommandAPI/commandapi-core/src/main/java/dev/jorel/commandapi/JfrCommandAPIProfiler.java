@@ -0,0 +1,169 @@
+package dev.jorel.commandapi;
+
+import org.bukkit.command.CommandSender;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emits a Java Flight Recorder event for each stage of the CommandAPI. This
+ * class must only be loaded through {@link CommandAPIProfiler}, since it
+ * references <code>jdk.jfr</code>. Events cost almost nothing while no
+ * recording is running.
+ */
+class JfrCommandAPIProfiler extends CommandAPIProfiler {
+	
+	@Name("dev.jorel.commandapi.CommandExecution")
+	@Label("Command Execution")
+	@Description("Execution of a command registered by the CommandAPI")
+	@Category("CommandAPI")
+	static class CommandExecutionEvent extends Event {
+		@Label("Command")
+		String command;
+		
+		@Label("Input")
+		String input;
+		
+		@Label("Sender Type")
+		String senderType;
+		
+		@Label("Success")
+		boolean success;
+	}
+	
+	@Name("dev.jorel.commandapi.Suggestions")
+	@Label("Suggestions")
+	@Description("Computation of suggestions for an argument with overridden suggestions")
+	@Category("CommandAPI")
+	static class SuggestionsEvent extends Event {
+		@Label("Node Name")
+		String nodeName;
+		
+		@Label("Input")
+		String input;
+	}
+	
+	@Name("dev.jorel.commandapi.PermissionCheck")
+	@Label("Permission Check")
+	@Description("Evaluation of a command or argument's permission and requirements")
+	@Category("CommandAPI")
+	static class PermissionCheckEvent extends Event {
+		@Label("Permission")
+		String permission;
+		
+		@Label("Sender Type")
+		String senderType;
+		
+		@Label("Result")
+		boolean result;
+	}
+	
+	@Name("dev.jorel.commandapi.Registration")
+	@Label("Command Registration")
+	@Description("Registration of a command with the CommandAPI")
+	@Category("CommandAPI")
+	static class RegistrationEvent extends Event {
+		@Label("Command")
+		String command;
+		
+		@Label("Argument Count")
+		int argumentCount;
+	}
+	
+	@Name("dev.jorel.commandapi.ResendPackets")
+	@Label("Resend Packets")
+	@Description("Resending of the command tree to a player")
+	@Category("CommandAPI")
+	static class ResendPacketsEvent extends Event {
+		@Label("Player")
+		String player;
+	}
+	
+	private static String senderType(CommandSender sender) {
+		return sender == null ? null : sender.getClass().getSimpleName();
+	}
+	
+	private static <T extends Event> T begin(T event) {
+		event.begin();
+		return event;
+	}
+	
+	@Override
+	Object beginExecution() {
+		return begin(new CommandExecutionEvent());
+	}
+	
+	@Override
+	Object beginSuggestions() {
+		return begin(new SuggestionsEvent());
+	}
+	
+	@Override
+	Object beginPermissionCheck() {
+		return begin(new PermissionCheckEvent());
+	}
+	
+	@Override
+	Object beginRegistration() {
+		return begin(new RegistrationEvent());
+	}
+	
+	@Override
+	Object beginResendPackets() {
+		return begin(new ResendPacketsEvent());
+	}
+	
+	@Override
+	boolean shouldCommit(Object event) {
+		Event jfrEvent = (Event) event;
+		jfrEvent.end();
+		return jfrEvent.shouldCommit();
+	}
+	
+	@Override
+	void commitExecution(Object event, String input, CommandSender sender, boolean success) {
+		CommandExecutionEvent executionEvent = (CommandExecutionEvent) event;
+		int space = input.indexOf(' ');
+		executionEvent.command = space == -1 ? input : input.substring(0, space);
+		executionEvent.input = input;
+		executionEvent.senderType = senderType(sender);
+		executionEvent.success = success;
+		executionEvent.commit();
+	}
+	
+	@Override
+	void commitSuggestions(Object event, String nodeName, String input) {
+		SuggestionsEvent suggestionsEvent = (SuggestionsEvent) event;
+		suggestionsEvent.nodeName = nodeName;
+		suggestionsEvent.input = input;
+		suggestionsEvent.commit();
+	}
+	
+	@Override
+	void commitPermissionCheck(Object event, CommandPermission permission, CommandSender sender, boolean result) {
+		PermissionCheckEvent permissionEvent = (PermissionCheckEvent) event;
+		permissionEvent.permission = permission.toString();
+		permissionEvent.senderType = senderType(sender);
+		permissionEvent.result = result;
+		permissionEvent.commit();
+	}
+	
+	@Override
+	void commitRegistration(Object event, String commandName, int argumentCount) {
+		RegistrationEvent registrationEvent = (RegistrationEvent) event;
+		registrationEvent.command = commandName;
+		registrationEvent.argumentCount = argumentCount;
+		registrationEvent.commit();
+	}
+	
+	@Override
+	void commitResendPackets(Object event, String playerName) {
+		ResendPacketsEvent resendEvent = (ResendPacketsEvent) event;
+		resendEvent.player = playerName;
+		resendEvent.commit();
+	}
+	
+}
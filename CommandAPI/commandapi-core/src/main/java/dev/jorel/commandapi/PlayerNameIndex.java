@@ -0,0 +1,120 @@
+package dev.jorel.commandapi;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import dev.jorel.commandapi.arguments.PlayerNameFilter;
+
+/**
+ * The names of the players that are online, sorted by their lowercase form.
+ * The index is updated as players join and leave, so finding the players whose
+ * names start with the remaining input is a range lookup instead of a search
+ * over every online player. The index can be read from any thread.
+ */
+class PlayerNameIndex {
+
+	private static final NavigableMap<String, Player> PLAYERS = new ConcurrentSkipListMap<>();
+	private static volatile boolean enabled = false;
+
+	/**
+	 * Fills the index with the players that are online and keeps it updated as
+	 * players join and leave
+	 *
+	 * @param plugin the plugin to register the listener with
+	 */
+	static void enable(Plugin plugin) {
+		PLAYERS.clear();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			PLAYERS.put(player.getName().toLowerCase(Locale.ROOT), player);
+		}
+
+		Bukkit.getServer().getPluginManager().registerEvents(new Listener() {
+			@EventHandler(priority = EventPriority.LOWEST)
+			public void onPlayerJoin(PlayerJoinEvent e) {
+				PLAYERS.put(e.getPlayer().getName().toLowerCase(Locale.ROOT), e.getPlayer());
+			}
+
+			@EventHandler(priority = EventPriority.MONITOR)
+			public void onPlayerQuit(PlayerQuitEvent e) {
+				PLAYERS.remove(e.getPlayer().getName().toLowerCase(Locale.ROOT), e.getPlayer());
+			}
+		}, plugin);
+		enabled = true;
+	}
+
+	/**
+	 * Returns whether the index is being kept updated
+	 *
+	 * @return true if the index can be used
+	 */
+	static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Suggests the names of the online players which start with the builder's
+	 * remaining input, ignoring case
+	 *
+	 * @param builder the builder to add suggestions to
+	 * @param sender  the command sender that is requesting suggestions
+	 * @param filters which online players are suggested to the command sender
+	 * @param limit   the maximum number of suggestions to add
+	 * @return the built suggestions
+	 */
+	static CompletableFuture<Suggestions> suggest(SuggestionsBuilder builder, CommandSender sender,
+			Set<PlayerNameFilter> filters, SuggestionLimit limit) {
+		String prefix = builder.getRemaining().toLowerCase(Locale.ROOT);
+		Map<String, Player> matches = PLAYERS.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+
+		if (limit.isRanked()) {
+			SuggestionLimit.Heap<IStringTooltip> best = limit.newHeap(tooltip -> tooltip);
+			for (Player player : matches.values()) {
+				if (isSuggested(sender, player, filters)) {
+					best.offer(StringTooltip.none(player.getName()));
+				}
+			}
+			for (IStringTooltip tooltip : best.elements()) {
+				builder.suggest(tooltip.getSuggestion());
+			}
+		} else {
+			int count = 0;
+			for (Player player : matches.values()) {
+				if (count == limit.getMax()) {
+					break;
+				}
+				if (isSuggested(sender, player, filters)) {
+					builder.suggest(player.getName());
+					count++;
+				}
+			}
+		}
+		return builder.buildFuture();
+	}
+
+	private static boolean isSuggested(CommandSender sender, Player player, Set<PlayerNameFilter> filters) {
+		for (PlayerNameFilter filter : filters) {
+			if (!filter.test(sender, player)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,120 @@
+package dev.jorel.commandapi;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import com.mojang.brigadier.LiteralMessage;
+import com.mojang.brigadier.Message;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+/**
+ * Suggestions which never change, indexed by their lowercase form. The
+ * suggestions are lowercased and sorted once, so finding the suggestions which
+ * start with the remaining input is a binary search for the first match
+ * followed by a scan over the matches, without allocating anything per
+ * suggestion.
+ */
+class PrefixIndexedSuggestions {
+	
+	private final String[] keys;
+	private final IStringTooltip[] originals;
+	private final String[] suggestions;
+	private final Message[] tooltips;
+	
+	PrefixIndexedSuggestions(IStringTooltip[] tooltips) {
+		this(lowercase(tooltips), tooltips);
+	}
+	
+	/**
+	 * Indexes suggestions by search keys which aren't their own text, such as
+	 * the path of a namespaced key
+	 * 
+	 * @param lowercase the lowercase key of each suggestion, which the remaining
+	 *                  input is matched against
+	 * @param tooltips  the suggestions
+	 */
+	PrefixIndexedSuggestions(String[] lowercase, IStringTooltip[] tooltips) {
+		Integer[] order = new Integer[tooltips.length];
+		for(int i = 0; i < tooltips.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparing(i -> lowercase[i]));
+		
+		this.keys = new String[tooltips.length];
+		this.originals = new IStringTooltip[tooltips.length];
+		this.suggestions = new String[tooltips.length];
+		this.tooltips = new Message[tooltips.length];
+		for(int i = 0; i < order.length; i++) {
+			IStringTooltip tooltip = tooltips[order[i]];
+			this.keys[i] = lowercase[order[i]];
+			this.originals[i] = tooltip;
+			this.suggestions[i] = tooltip.getSuggestion();
+			this.tooltips[i] = tooltip.getTooltip() == null ? null : new LiteralMessage(tooltip.getTooltip());
+		}
+	}
+	
+	/**
+	 * Suggests every suggestion which starts with the builder's remaining input,
+	 * ignoring case, up to a limit
+	 * 
+	 * @param builder the builder to add suggestions to
+	 * @param limit   the maximum number of suggestions to add
+	 * @return the built suggestions
+	 */
+	CompletableFuture<Suggestions> suggest(SuggestionsBuilder builder, SuggestionLimit limit) {
+		addMatches(builder, builder.getRemaining().toLowerCase(Locale.ROOT), limit);
+		return builder.buildFuture();
+	}
+	
+	/**
+	 * Adds every suggestion whose key starts with a prefix, up to a limit
+	 * 
+	 * @param builder the builder to add suggestions to
+	 * @param prefix  the lowercase prefix to match keys against
+	 * @param limit   the maximum number of suggestions to add
+	 */
+	void addMatches(SuggestionsBuilder builder, String prefix, SuggestionLimit limit) {
+		int i = firstAtLeast(prefix);
+		if(limit.isRanked()) {
+			SuggestionLimit.Heap<Integer> best = limit.newHeap(index -> originals[index]);
+			for(; i < keys.length && keys[i].startsWith(prefix); i++) {
+				best.offer(i);
+			}
+			for(int index : best.elements()) {
+				builder.suggest(suggestions[index], tooltips[index]);
+			}
+		} else {
+			int end = (int) Math.min((long) i + limit.getMax(), keys.length);
+			for(; i < end && keys[i].startsWith(prefix); i++) {
+				builder.suggest(suggestions[i], tooltips[i]);
+			}
+		}
+	}
+	
+	private static String[] lowercase(IStringTooltip[] tooltips) {
+		String[] lowercase = new String[tooltips.length];
+		for(int i = 0; i < tooltips.length; i++) {
+			lowercase[i] = tooltips[i].getSuggestion().toLowerCase(Locale.ROOT);
+		}
+		return lowercase;
+	}
+	
+	// Every key which starts with the prefix sorts at or after the prefix itself, and they are all adjacent
+	private int firstAtLeast(String prefix) {
+		int low = 0;
+		int high = keys.length;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(keys[mid].compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+	
+}
@@ -0,0 +1,132 @@
+package dev.jorel.commandapi;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+
+import dev.jorel.commandapi.arguments.Argument;
+
+/**
+ * Remembers the previously declared arguments that were last parsed for each
+ * command sender while computing suggestions. While a player types an
+ * argument, the input before it stays the same, so the arguments before it
+ * (which may be custom arguments that are expensive to parse) only need to be
+ * parsed once. Entries are only reused for exactly the same input, and only
+ * for a few seconds, since parsed arguments can go stale.
+ * <p>
+ * Senders are identified by their UUID or name rather than held themselves,
+ * and the cache has a maximum size. Expired entries are removed whenever the
+ * cache is read or written, so players who leave don't stay in it.
+ */
+class PreviousArgumentsCache {
+	
+	private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+	private static final int MAX_SIZE = 256;
+	
+	private static class Entry {
+		final String input;
+		final Object[] arguments;
+		final long expiresAt;
+		
+		Entry(String input, Object[] arguments, long expiresAt) {
+			this.input = input;
+			this.arguments = arguments;
+			this.expiresAt = expiresAt;
+		}
+	}
+	
+	// Ordered by when each entry was written, so the oldest entries are always first
+	private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>();
+	
+	/**
+	 * Returns whether previously declared arguments can be remembered between
+	 * suggestion requests. Arguments which are parsed relative to where the
+	 * command is run from, such as relative coordinates and entity selectors,
+	 * can't be, since the same input can parse differently as the sender moves
+	 * or when the command is run through <code>/execute</code>
+	 * 
+	 * @param previousArguments the previously declared arguments
+	 * @return true if the parsed arguments only depend on the sender and the input
+	 */
+	static boolean isCacheable(List<Argument> previousArguments) {
+		for(Argument argument : previousArguments) {
+			switch(argument.getArgumentType()) {
+			case ANGLE:
+			case CHAT:
+			case ADVENTURE_CHAT:
+			case ENTITY_SELECTOR:
+			case LOCATION:
+			case LOCATION_2D:
+			case PLAYER:
+			case ROTATION:
+			case SCORE_HOLDER:
+				return false;
+			default:
+				break;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns the arguments that were last parsed for a sender
+	 * 
+	 * @param sender the sender that is requesting suggestions
+	 * @param input  the input up to the argument that is being suggested
+	 * @return the previously parsed arguments, or null if they weren't parsed
+	 *         from the same input recently
+	 */
+	synchronized Object[] get(CommandSender sender, String input) {
+		if(sender == null) {
+			return null;
+		}
+		removeExpired(System.nanoTime());
+		Entry entry = entries.get(keyOf(sender));
+		if(entry == null || !entry.input.equals(input)) {
+			return null;
+		}
+		return entry.arguments;
+	}
+	
+	/**
+	 * Remembers the arguments that were parsed for a sender
+	 * 
+	 * @param sender    the sender that is requesting suggestions
+	 * @param input     the input up to the argument that is being suggested
+	 * @param arguments the parsed arguments
+	 */
+	synchronized void put(CommandSender sender, String input, Object[] arguments) {
+		if(sender == null) {
+			return;
+		}
+		long now = System.nanoTime();
+		removeExpired(now);
+		
+		// Removed first, so the entry moves to the end of the write order
+		Object key = keyOf(sender);
+		entries.remove(key);
+		entries.put(key, new Entry(input, arguments, now + TTL_NANOS));
+		if(entries.size() > MAX_SIZE) {
+			Iterator<Entry> iterator = entries.values().iterator();
+			iterator.next();
+			iterator.remove();
+		}
+	}
+	
+	// Every entry lives for the same time, so the expired entries are the oldest ones
+	private void removeExpired(long now) {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while(iterator.hasNext() && now - iterator.next().expiresAt >= 0) {
+			iterator.remove();
+		}
+	}
+	
+	private static Object keyOf(CommandSender sender) {
+		return sender instanceof Entity ? ((Entity) sender).getUniqueId() : sender.getName();
+	}
+	
+}
@@ -0,0 +1,245 @@
+package dev.jorel.commandapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import dev.jorel.commandapi.arguments.Argument;
+import dev.jorel.commandapi.arguments.LiteralArgument;
+import dev.jorel.commandapi.arguments.MultiLiteralArgument;
+
+/**
+ * The paths of every command that has been registered, as a trie of node names
+ * which mirrors how Brigadier merges command nodes. Brigadier merges nodes by
+ * name alone, so two arguments with the same name and position but different
+ * types would end up sharing one node. Checking a command against every
+ * command registered before it is a single walk down the trie.
+ * <p>
+ * Paths are inserted as each branch of a command is generated. The paths
+ * inserted during a registration are only kept once the registration is
+ * committed, and are removed again if the registration is rolled back.
+ * Registrations can be nested, in which case only the outermost registration
+ * commits or rolls back.
+ */
+class RegisteredCommandTrie {
+
+	/**
+	 * A node of a registered command
+	 */
+	static class Node {
+		private final Node parent;
+		private final String label;
+		private final Class<? extends Argument> type;
+		private final Map<String, Node> children;
+		// The number of inserted paths which go through each of the children
+		private final Map<String, Integer> paths;
+
+		private Node(Node parent, String label, Class<? extends Argument> type) {
+			this.parent = parent;
+			this.label = label;
+			this.type = type;
+			this.children = new HashMap<>();
+			this.paths = new HashMap<>();
+		}
+
+		/**
+		 * Describes the registered command that this node is part of, up to and
+		 * including this node
+		 *
+		 * @return the command's name, followed by each of its arguments and their types
+		 */
+		String describe() {
+			List<Node> path = new ArrayList<>();
+			for(Node node = this; node.parent != null; node = node.parent) {
+				path.add(node);
+			}
+			Node command = path.isEmpty() ? this : path.get(path.size() - 1).parent;
+
+			StringBuilder builder = new StringBuilder(command.label).append(' ');
+			for(int i = path.size() - 1; i >= 0; i--) {
+				Node node = path.get(i);
+				builder.append(node.label).append('<').append(node.type.getSimpleName()).append("> ");
+			}
+			return builder.toString();
+		}
+	}
+
+	private final Map<String, Node> commands = new HashMap<>();
+	private final List<String> uncommittedNames = new ArrayList<>();
+	private final List<List<Argument>> uncommittedArgs = new ArrayList<>();
+	private int registrations = 0;
+
+	/**
+	 * Finds a node of a previously registered command which has the same name
+	 * and position as one of a command's arguments, but a different type
+	 *
+	 * @param commandName the name of the command
+	 * @param args        the command's arguments
+	 * @return the conflicting node, or null if the command doesn't conflict with
+	 *         any previously registered command
+	 */
+	Node findConflict(String commandName, List<Argument> args) {
+		Node command = commands.get(commandName);
+		if(command == null) {
+			return null;
+		}
+
+		Set<Node> current = Collections.singleton(command);
+		for(Argument arg : args) {
+			Class<? extends Argument> type = typeOf(arg);
+			Set<Node> next = newNodeSet();
+			for(Node node : current) {
+				for(String name : namesOf(arg)) {
+					Node child = node.children.get(name);
+					if(child == null) {
+						continue;
+					}
+					if(child.type != type) {
+						return child;
+					}
+					next.add(child);
+				}
+			}
+			if(next.isEmpty()) {
+				return null;
+			}
+			current = next;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a command's path to the trie
+	 *
+	 * @param commandName the name of the command
+	 * @param args        the command's arguments
+	 */
+	void insert(String commandName, List<Argument> args) {
+		Set<Node> current = Collections.singleton(commands.computeIfAbsent(commandName, name -> new Node(null, name, null)));
+		for(Argument arg : args) {
+			Class<? extends Argument> type = typeOf(arg);
+			Set<Node> next = newNodeSet();
+			for(Node node : current) {
+				// Like the command nodes, the literals of a MultiLiteralArgument share the same child
+				Node created = null;
+				for(String name : namesOf(arg)) {
+					Node child = node.children.get(name);
+					if(child == null) {
+						if(created == null) {
+							created = new Node(node, arg.getNodeName(), type);
+						}
+						child = created;
+						node.children.put(name, child);
+					}
+					node.paths.merge(name, 1, Integer::sum);
+					next.add(child);
+				}
+			}
+			current = next;
+		}
+		// Paths inserted outside of a registration are kept straight away
+		if(registrations > 0) {
+			uncommittedNames.add(commandName);
+			uncommittedArgs.add(args);
+		}
+	}
+
+	/**
+	 * Starts a registration, which must be ended by either {@link #commit()} or
+	 * {@link #rollback()}
+	 */
+	void begin() {
+		registrations++;
+	}
+
+	/**
+	 * Ends a registration that succeeded, keeping every path inserted during it
+	 */
+	void commit() {
+		if(--registrations == 0) {
+			uncommittedNames.clear();
+			uncommittedArgs.clear();
+		}
+	}
+
+	/**
+	 * Ends a registration that failed, removing every path inserted during it
+	 */
+	void rollback() {
+		if(--registrations == 0) {
+			for(int i = uncommittedNames.size() - 1; i >= 0; i--) {
+				remove(uncommittedNames.get(i), uncommittedArgs.get(i));
+			}
+			uncommittedNames.clear();
+			uncommittedArgs.clear();
+		}
+	}
+
+	// Removes one inserted path, along with any node which no other path goes through
+	private void remove(String commandName, List<Argument> args) {
+		Node command = commands.get(commandName);
+		if(command == null) {
+			return;
+		}
+
+		Set<Node> current = Collections.singleton(command);
+		for(Argument arg : args) {
+			Set<Node> next = newNodeSet();
+			for(Node node : current) {
+				for(String name : namesOf(arg)) {
+					Node child = node.children.get(name);
+					if(child == null) {
+						continue;
+					}
+					if(node.paths.merge(name, -1, Integer::sum) <= 0) {
+						node.paths.remove(name);
+						node.children.remove(name);
+					}
+					next.add(child);
+				}
+			}
+			current = next;
+		}
+		if(command.children.isEmpty()) {
+			commands.remove(commandName);
+		}
+	}
+
+	/**
+	 * Removes a command and all of its paths from the trie, so it can be
+	 * registered again with different arguments
+	 *
+	 * @param commandName the name of the command
+	 */
+	void remove(String commandName) {
+		commands.remove(commandName);
+	}
+
+	private static Set<Node> newNodeSet() {
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	// The names of an argument's command nodes, which are a node for each literal of a MultiLiteralArgument
+	private static String[] namesOf(Argument arg) {
+		if(arg instanceof MultiLiteralArgument) {
+			return ((MultiLiteralArgument) arg).getLiterals();
+		} else if(arg instanceof LiteralArgument) {
+			return new String[] { ((LiteralArgument) arg).getLiteral() };
+		} else {
+			return new String[] { arg.getNodeName() };
+		}
+	}
+
+	// Every literal becomes the same kind of command node, whichever argument it came from
+	private static Class<? extends Argument> typeOf(Argument arg) {
+		if(arg instanceof MultiLiteralArgument || arg instanceof LiteralArgument) {
+			return LiteralArgument.class;
+		}
+		return arg.getClass();
+	}
+
+}
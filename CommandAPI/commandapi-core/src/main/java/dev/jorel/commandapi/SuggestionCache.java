@@ -0,0 +1,99 @@
+package dev.jorel.commandapi;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+import org.bukkit.command.CommandSender;
+
+import dev.jorel.commandapi.arguments.Argument;
+import dev.jorel.commandapi.arguments.CacheKey;
+
+/**
+ * Caches the overridden suggestions of an argument, as configured by
+ * {@link Argument#cacheSuggestions(java.time.Duration, CacheKey)}. Futures are
+ * cached rather than their results, so concurrent requests for the same key
+ * share one call to an asynchronous provider. Futures which fail are removed
+ * from the cache straight away. A synchronous provider is called while the
+ * cache is locked, so concurrent requests wait for its result instead of
+ * calling it again.
+ */
+class SuggestionCache {
+	
+	private final CacheKey scope;
+	private final ExpiringLruCache<Object, CompletableFuture<IStringTooltip[]>> cache;
+	
+	private SuggestionCache(Argument argument) {
+		this.scope = argument.getSuggestionsCacheKey();
+		this.cache = new ExpiringLruCache<>(argument.getSuggestionsCacheTtl().toNanos(), argument.getSuggestionsCacheSize());
+	}
+	
+	/**
+	 * Wraps a suggestion provider with the argument's suggestion cache, if it has one
+	 * 
+	 * @param argument the argument whose suggestions are provided
+	 * @param provider the function which provides the suggestions
+	 * @return a function which provides cached suggestions
+	 */
+	static BiFunction<CommandSender, Object[], IStringTooltip[]> wrap(Argument argument,
+			BiFunction<CommandSender, Object[], IStringTooltip[]> provider) {
+		if(argument.getSuggestionsCacheTtl() == null) {
+			return provider;
+		}
+		SuggestionCache suggestionCache = new SuggestionCache(argument);
+		return (sender, args) -> suggestionCache.get(sender, args, (s, a) -> CompletableFuture.completedFuture(provider.apply(s, a))).join();
+	}
+	
+	/**
+	 * Wraps an asynchronous suggestion provider with the argument's suggestion
+	 * cache, if it has one
+	 * 
+	 * @param argument the argument whose suggestions are provided
+	 * @param provider the function which provides the suggestions
+	 * @return a function which provides cached suggestions
+	 */
+	static BiFunction<CommandSender, Object[], CompletableFuture<IStringTooltip[]>> wrapAsync(Argument argument,
+			BiFunction<CommandSender, Object[], CompletableFuture<IStringTooltip[]>> provider) {
+		if(argument.getSuggestionsCacheTtl() == null) {
+			return provider;
+		}
+		SuggestionCache suggestionCache = new SuggestionCache(argument);
+		return (sender, args) -> suggestionCache.get(sender, args, provider);
+	}
+	
+	private CompletableFuture<IStringTooltip[]> get(CommandSender sender, Object[] args,
+			BiFunction<CommandSender, Object[], CompletableFuture<IStringTooltip[]>> provider) {
+		Object key = key(sender, args);
+		boolean[] computed = { false };
+		CompletableFuture<IStringTooltip[]> suggestions = cache.computeIfAbsent(key, k -> {
+			computed[0] = true;
+			return provider.apply(sender, args);
+		});
+		// Only the request which called the provider removes its future, once it's been added
+		if(computed[0]) {
+			suggestions.whenComplete((result, exception) -> {
+				if(exception != null) {
+					cache.remove(key, suggestions);
+				}
+			});
+		}
+		return suggestions;
+	}
+	
+	private Object key(CommandSender sender, Object[] args) {
+		String senderName = sender == null ? "" : sender.getName();
+		switch(scope) {
+		case SENDER:
+			return senderName;
+		case SENDER_AND_ARGUMENTS:
+			Object[] key = new Object[args.length + 1];
+			key[0] = senderName;
+			System.arraycopy(args, 0, key, 1, args.length);
+			return Arrays.asList(key);
+		case GLOBAL:
+		default:
+			return "";
+		}
+	}
+	
+}
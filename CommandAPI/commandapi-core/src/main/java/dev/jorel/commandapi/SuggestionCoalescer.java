@@ -0,0 +1,215 @@
+package dev.jorel.commandapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+/**
+ * Sits in front of the CommandAPI's suggestion providers and coalesces bursts
+ * of tab-complete requests from the same player. A player only ever has one
+ * current request: when a newer request arrives, any suggestions for the older
+ * request which haven't finished yet are completed with no suggestions.
+ * Requests can also be delayed by a short window, so only the last request of
+ * a burst is computed at all, and can be capped to a number of requests per
+ * second for each player and for the whole server.
+ */
+class SuggestionCoalescer {
+
+	/**
+	 * Brigadier asks every suggestion provider that can suggest at the cursor
+	 * for a single request straight after each other, so providers asked for
+	 * the same input within this time belong to the same request
+	 */
+	private static final long SAME_REQUEST_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private static SuggestionCoalescer instance;
+	private static boolean loaded = false;
+
+	/**
+	 * Returns the suggestion coalescer that is configured in the CommandAPI's
+	 * config
+	 *
+	 * @return the suggestion coalescer, or null if suggestions shouldn't be
+	 *         coalesced
+	 */
+	static synchronized SuggestionCoalescer getInstance() {
+		if(!loaded && CommandAPI.getConfiguration() != null) {
+			Config config = CommandAPI.getConfiguration();
+			if(config.shouldCoalesceSuggestions()) {
+				instance = new SuggestionCoalescer(config.getSuggestionCoalesceWindow(),
+						config.getSuggestionRateLimit(), config.getGlobalSuggestionRateLimit());
+			}
+			loaded = true;
+		}
+		return instance;
+	}
+
+	private static class RateLimit {
+		private final int limit;
+		private long windowStart;
+		private int count;
+
+		RateLimit(int limit) {
+			this.limit = limit;
+		}
+
+		boolean tryAcquire(long now) {
+			if(limit <= 0) {
+				return true;
+			}
+			if(now - windowStart >= ONE_SECOND_NANOS) {
+				windowStart = now;
+				count = 0;
+			}
+			return count++ < limit;
+		}
+	}
+
+	private static class Request {
+		final String input;
+		final long startedAt;
+		final boolean rejected;
+		final List<CompletableFuture<Suggestions>> pending;
+		boolean superseded;
+
+		Request(String input, long startedAt, boolean rejected) {
+			this.input = input;
+			this.startedAt = startedAt;
+			this.rejected = rejected;
+			this.pending = new ArrayList<>();
+			this.superseded = false;
+		}
+	}
+
+	private static class PlayerState {
+		final RateLimit rateLimit;
+		Request current;
+
+		PlayerState(int limit) {
+			this.rateLimit = new RateLimit(limit);
+		}
+	}
+
+	private final long windowTicks;
+	private final int playerLimit;
+	private final RateLimit globalRateLimit;
+	private final Map<CommandSender, PlayerState> players;
+
+	SuggestionCoalescer(long windowMillis, int playerLimit, int globalLimit) {
+		// Round the window up to whole ticks, since it's scheduled on the main thread
+		this.windowTicks = windowMillis <= 0 ? 0 : (windowMillis + 49) / 50;
+		this.playerLimit = playerLimit;
+		this.globalRateLimit = new RateLimit(globalLimit);
+		this.players = Collections.synchronizedMap(new WeakHashMap<>());
+	}
+
+	/**
+	 * Asks a suggestion provider for suggestions, unless the request is
+	 * superseded by a newer request or is over a rate limit
+	 *
+	 * @param <CommandListenerWrapper> the NMS command source type
+	 * @param sender                   the sender that is requesting suggestions
+	 * @param context                  the command context of the request
+	 * @param builder                  the suggestions builder of the request
+	 * @param provider                 the suggestion provider to ask
+	 * @return the suggestions, or no suggestions if the request was superseded
+	 *         or rejected
+	 * @throws CommandSyntaxException if the suggestion provider fails
+	 */
+	<CommandListenerWrapper> CompletableFuture<Suggestions> getSuggestions(CommandSender sender,
+			CommandContext<CommandListenerWrapper> context, SuggestionsBuilder builder,
+			SuggestionProvider<CommandListenerWrapper> provider) throws CommandSyntaxException {
+		// Only players send tab-complete requests to Brigadier
+		if(!(sender instanceof Player)) {
+			return provider.getSuggestions(context, builder);
+		}
+
+		Request request = getRequest(sender, context.getInput());
+		if(request.rejected) {
+			return Suggestions.empty();
+		}
+
+		if(windowTicks == 0) {
+			CompletableFuture<Suggestions> suggestions = provider.getSuggestions(context, builder);
+			if(suggestions.isDone()) {
+				return suggestions;
+			}
+			CompletableFuture<Suggestions> result = track(request);
+			suggestions.whenComplete((value, throwable) -> complete(result, value, throwable));
+			return result;
+		} else {
+			CompletableFuture<Suggestions> result = track(request);
+			Bukkit.getScheduler().runTaskLater(CommandAPI.getPlugin(), () -> {
+				// A newer request arrived during the window
+				if(result.isDone()) {
+					return;
+				}
+				try {
+					provider.getSuggestions(context, builder).whenComplete((value, throwable) -> complete(result, value, throwable));
+				} catch (CommandSyntaxException e) {
+					result.completeExceptionally(e);
+				}
+			}, windowTicks);
+			return result;
+		}
+	}
+
+	// Finds the request that a suggestion provider is being asked for, starting a new one if needed
+	private synchronized Request getRequest(CommandSender sender, String input) {
+		long now = System.nanoTime();
+		PlayerState state = players.computeIfAbsent(sender, s -> new PlayerState(playerLimit));
+		Request previous = state.current;
+		if(previous != null && previous.input.equals(input) && now - previous.startedAt < SAME_REQUEST_NANOS) {
+			return previous;
+		}
+
+		if(previous != null) {
+			previous.superseded = true;
+			for(CompletableFuture<Suggestions> pending : previous.pending) {
+				pending.complete(Suggestions.empty().join());
+			}
+			previous.pending.clear();
+		}
+
+		// Both rate limits are always counted, so the global limit counts every request
+		boolean allowedForPlayer = state.rateLimit.tryAcquire(now);
+		boolean allowedGlobally = globalRateLimit.tryAcquire(now);
+		state.current = new Request(input, now, !(allowedForPlayer && allowedGlobally));
+		return state.current;
+	}
+
+	// Creates a future for a request, which is completed with no suggestions if the request is superseded
+	private synchronized CompletableFuture<Suggestions> track(Request request) {
+		CompletableFuture<Suggestions> result = new CompletableFuture<>();
+		if(request.superseded) {
+			result.complete(Suggestions.empty().join());
+		} else {
+			request.pending.add(result);
+		}
+		return result;
+	}
+
+	private static void complete(CompletableFuture<Suggestions> result, Suggestions value, Throwable throwable) {
+		if(throwable == null) {
+			result.complete(value);
+		} else {
+			result.completeExceptionally(throwable);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package dev.jorel.commandapi;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import dev.jorel.commandapi.arguments.Argument;
+
+/**
+ * The maximum number of suggestions an argument sends to a player, and the
+ * ranking which decides which suggestions are kept if there are more. Without
+ * a ranking, searching for suggestions stops at the first matches. With a
+ * ranking, the best matches are kept in a heap which never grows past the
+ * limit.
+ */
+class SuggestionLimit {
+
+	static final SuggestionLimit NONE = new SuggestionLimit(Integer.MAX_VALUE, null);
+
+	private final int max;
+	private final Comparator<IStringTooltip> ranking;
+
+	private SuggestionLimit(int max, Comparator<IStringTooltip> ranking) {
+		this.max = max;
+		this.ranking = ranking;
+	}
+
+	/**
+	 * Returns the suggestion limit of an argument, using the global limit in the
+	 * CommandAPI's config if the argument doesn't declare its own
+	 *
+	 * @param argument the argument to get the suggestion limit of
+	 * @return the argument's suggestion limit
+	 */
+	static SuggestionLimit of(Argument argument) {
+		int max = argument.getMaxSuggestions();
+		if(max <= 0 && CommandAPI.getConfiguration() != null) {
+			max = CommandAPI.getConfiguration().getMaxSuggestions();
+		}
+		if(max <= 0) {
+			return NONE;
+		}
+		return new SuggestionLimit(max, argument.getSuggestionsRanking().orElse(null));
+	}
+
+	/**
+	 * Returns the maximum number of suggestions
+	 *
+	 * @return the maximum number of suggestions, which is
+	 *         {@link Integer#MAX_VALUE} if there is no limit
+	 */
+	int getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns whether the best suggestions are kept, rather than the first
+	 * suggestions found
+	 *
+	 * @return true if this limit has a ranking
+	 */
+	boolean isRanked() {
+		return ranking != null;
+	}
+
+	/**
+	 * Creates a heap of the best suggestions found so far, for a ranked limit.
+	 * The worst suggestion in the heap is at its head, so it can be removed when
+	 * the heap grows past the limit
+	 *
+	 * @param <T>        the type of the elements of the heap
+	 * @param toTooltip  the suggestion that an element of the heap represents
+	 * @return an empty heap
+	 */
+	<T> Heap<T> newHeap(Function<T, IStringTooltip> toTooltip) {
+		return new Heap<>(toTooltip);
+	}
+
+	/**
+	 * The best suggestions found so far for a ranked limit
+	 *
+	 * @param <T> the type of the elements of the heap
+	 */
+	class Heap<T> {
+		private final PriorityQueue<T> queue;
+
+		private Heap(Function<T, IStringTooltip> toTooltip) {
+			Comparator<T> order = (a, b) -> ranking.compare(toTooltip.apply(a), toTooltip.apply(b));
+			this.queue = new PriorityQueue<>(Math.min(max, 64) + 1, order.reversed());
+		}
+
+		/**
+		 * Adds a suggestion to the heap, removing the worst suggestion if the heap
+		 * is then over the limit
+		 *
+		 * @param element the suggestion to add
+		 */
+		void offer(T element) {
+			queue.offer(element);
+			if(queue.size() > max) {
+				queue.poll();
+			}
+		}
+
+		/**
+		 * Returns the best suggestions that were added to the heap
+		 *
+		 * @return the best suggestions, in no particular order
+		 */
+		Iterable<T> elements() {
+			return queue;
+		}
+	}
+
+}
@@ -1,12 +1,18 @@
 package dev.jorel.commandapi.arguments;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 
 import com.mojang.brigadier.arguments.ArgumentType;
@@ -75,6 +81,29 @@ public abstract class Argument implements IOverrideableSuggestions {
 	/////////////////
 
 	private Optional<BiFunction<CommandSender, Object[], IStringTooltip[]>> suggestions = Optional.empty();
+	private Optional<BiFunction<CommandSender, Object[], CompletableFuture<IStringTooltip[]>>> asyncSuggestions = Optional.empty();
+	private Optional<IStringTooltip[]> staticSuggestions = Optional.empty();
+	private Optional<Set<PlayerNameFilter>> playerNameSuggestions = Optional.empty();
+	private Duration asyncSuggestionsTimeout = DEFAULT_ASYNC_SUGGESTIONS_TIMEOUT;
+	private boolean asyncSuggestionsStale = true;
+	
+	private Duration suggestionsCacheTtl = null;
+	private CacheKey suggestionsCacheKey = CacheKey.GLOBAL;
+	private int suggestionsCacheSize = DEFAULT_SUGGESTIONS_CACHE_SIZE;
+	
+	private int maxSuggestions = 0;
+	private Optional<Comparator<IStringTooltip>> suggestionsRanking = Optional.empty();
+	
+	/**
+	 * The default maximum number of entries in an argument's suggestion cache
+	 */
+	public static final int DEFAULT_SUGGESTIONS_CACHE_SIZE = 1024;
+	
+	/**
+	 * The default time that asynchronous suggestions have to complete before
+	 * the fallback suggestions are used instead
+	 */
+	public static final Duration DEFAULT_ASYNC_SUGGESTIONS_TIMEOUT = Duration.ofSeconds(1);
 		
 	/**
 	 * Maps a String[] of suggestions to a StringTooltip[], using StringTooltip.none.
@@ -87,6 +116,23 @@ public abstract class Argument implements IOverrideableSuggestions {
 		return Arrays.stream(suggestions).map(StringTooltip::none).toArray(StringTooltip[]::new);
 	}
 
+	/**
+	 * Override the suggestions of this argument with suggestions which never
+	 * change. Since they never change, the CommandAPI can index them once when
+	 * the command is registered instead of searching all of them for every
+	 * request.
+	 * 
+	 * @param suggestions the suggestions to override suggestions with
+	 * @return the current argument
+	 */
+	final Argument overrideStaticSuggestions(IStringTooltip[] suggestions) {
+		this.suggestions = Optional.of((c, m) -> suggestions);
+		this.asyncSuggestions = Optional.empty();
+		this.staticSuggestions = Optional.of(suggestions);
+		this.playerNameSuggestions = Optional.empty();
+		return this;
+	}
+
 	/**
 	 * Override the suggestions of this argument with a String array.
 	 * 
@@ -97,8 +143,7 @@ public abstract class Argument implements IOverrideableSuggestions {
 	@Deprecated
 	@Override
 	public final Argument overrideSuggestions(String... suggestions) {
-		this.suggestions = Optional.of((c, m) -> fromSuggestions(suggestions));
-		return this;
+		return overrideStaticSuggestions(fromSuggestions(suggestions));
 	}
 	
 	/**
@@ -111,8 +156,7 @@ public abstract class Argument implements IOverrideableSuggestions {
 	@Deprecated
 	@Override
 	public final Argument overrideSuggestions(Collection<String> suggestions) {
-		this.suggestions = Optional.of((c, m) -> fromSuggestions(suggestions.toArray(new String[0])));
-		return this;
+		return overrideStaticSuggestions(fromSuggestions(suggestions.toArray(new String[0])));
 	}
 
 	/**
@@ -125,6 +169,9 @@ public abstract class Argument implements IOverrideableSuggestions {
 	@Override
 	public final Argument overrideSuggestions(Function<CommandSender, String[]> suggestions) {
 		this.suggestions =  Optional.of((c, m) -> fromSuggestions(suggestions.apply(c)));
+		this.asyncSuggestions = Optional.empty();
+		this.staticSuggestions = Optional.empty();
+		this.playerNameSuggestions = Optional.empty();
 		return this;
 	}
 	
@@ -138,6 +185,9 @@ public abstract class Argument implements IOverrideableSuggestions {
 	@Override
 	public final Argument overrideSuggestions(BiFunction<CommandSender, Object[], String[]> suggestions) {
 		this.suggestions =  Optional.of((c, m) -> fromSuggestions(suggestions.apply(c, m)));
+		this.asyncSuggestions = Optional.empty();
+		this.staticSuggestions = Optional.empty();
+		this.playerNameSuggestions = Optional.empty();
 		return this;
 	}
 	
@@ -151,8 +201,7 @@ public abstract class Argument implements IOverrideableSuggestions {
 	@Deprecated
 	@Override
 	public final Argument overrideSuggestionsT(Collection<IStringTooltip> suggestions) {
-		this.suggestions = Optional.of((c, m) -> suggestions.toArray(new IStringTooltip[0]));
-		return this;
+		return overrideStaticSuggestions(suggestions.toArray(new IStringTooltip[0]));
 	}
 	
 	/**
@@ -165,8 +214,7 @@ public abstract class Argument implements IOverrideableSuggestions {
 	@Deprecated
 	@Override
 	public final Argument overrideSuggestionsT(IStringTooltip... suggestions) {
-		this.suggestions = Optional.of((c, m) -> suggestions);
-		return this;
+		return overrideStaticSuggestions(suggestions);
 	}
 
 	/**
@@ -179,6 +227,9 @@ public abstract class Argument implements IOverrideableSuggestions {
 	@Override
 	public final Argument overrideSuggestionsT(Function<CommandSender, IStringTooltip[]> suggestions) {
 		this.suggestions =  Optional.of((c, m) -> suggestions.apply(c));
+		this.asyncSuggestions = Optional.empty();
+		this.staticSuggestions = Optional.empty();
+		this.playerNameSuggestions = Optional.empty();
 		return this;
 	}
 	
@@ -192,8 +243,179 @@ public abstract class Argument implements IOverrideableSuggestions {
 	@Override
 	public final Argument overrideSuggestionsT(BiFunction<CommandSender, Object[], IStringTooltip[]> suggestions) {
 		this.suggestions =  Optional.of(suggestions);
+		this.asyncSuggestions = Optional.empty();
+		this.staticSuggestions = Optional.empty();
+		this.playerNameSuggestions = Optional.empty();
+		return this;
+	}
+
+	/**
+	 * Override the suggestions of this argument with a function that maps the
+	 * command sender and a data set of previously declared arguments to a future
+	 * IStringTooltip array. This lets suggestions be computed off the server
+	 * thread, for example from a database. If the future hasn't completed within
+	 * {@link #DEFAULT_ASYNC_SUGGESTIONS_TIMEOUT}, the last suggestions computed
+	 * for the same sender are used instead, or no suggestions if there are none.
+	 * 
+	 * @param suggestions the function to override suggestions with
+	 * @return the current argument
+	 */
+	public final Argument overrideSuggestionsAsync(BiFunction<CommandSender, Object[], CompletableFuture<IStringTooltip[]>> suggestions) {
+		return overrideSuggestionsAsync(suggestions, DEFAULT_ASYNC_SUGGESTIONS_TIMEOUT, true);
+	}
+	
+	/**
+	 * Override the suggestions of this argument with a function that maps the
+	 * command sender and a data set of previously declared arguments to a future
+	 * IStringTooltip array. This lets suggestions be computed off the server
+	 * thread, for example from a database.
+	 * 
+	 * @param suggestions the function to override suggestions with
+	 * @param timeout     the time the future has to complete before the fallback
+	 *                    suggestions are used instead
+	 * @param useStale    if true, the fallback suggestions are the last
+	 *                    suggestions computed for the same sender. If false, or
+	 *                    if there are none, no suggestions are shown
+	 * @return the current argument
+	 */
+	public final Argument overrideSuggestionsAsync(BiFunction<CommandSender, Object[], CompletableFuture<IStringTooltip[]>> suggestions,
+			Duration timeout, boolean useStale) {
+		this.suggestions = Optional.empty();
+		this.asyncSuggestions = Optional.of(suggestions);
+		this.staticSuggestions = Optional.empty();
+		this.playerNameSuggestions = Optional.empty();
+		this.asyncSuggestionsTimeout = timeout;
+		this.asyncSuggestionsStale = useStale;
+		return this;
+	}
+
+	/**
+	 * Caches the overridden suggestions of this argument, so the function which
+	 * provides them is called at most once per time-to-live for each cache key,
+	 * instead of once for every tab-complete request. At most
+	 * {@link #DEFAULT_SUGGESTIONS_CACHE_SIZE} entries are cached, and the least
+	 * recently used entries are evicted first.
+	 * 
+	 * @param ttl   how long cached suggestions are used for
+	 * @param scope what cached suggestions are shared between
+	 * @return the current argument
+	 * @throws IllegalArgumentException if the time-to-live isn't positive or the
+	 *                                  scope is null
+	 */
+	public final Argument cacheSuggestions(Duration ttl, CacheKey scope) {
+		return cacheSuggestions(ttl, scope, DEFAULT_SUGGESTIONS_CACHE_SIZE);
+	}
+	
+	/**
+	 * Caches the overridden suggestions of this argument, so the function which
+	 * provides them is called at most once per time-to-live for each cache key,
+	 * instead of once for every tab-complete request. The least recently used
+	 * entries are evicted first.
+	 * 
+	 * @param ttl     how long cached suggestions are used for
+	 * @param scope   what cached suggestions are shared between
+	 * @param maxSize the maximum number of entries to cache
+	 * @return the current argument
+	 * @throws IllegalArgumentException if the time-to-live isn't positive, the
+	 *                                  scope is null or the size isn't positive
+	 */
+	public final Argument cacheSuggestions(Duration ttl, CacheKey scope, int maxSize) {
+		if(ttl == null || ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("The suggestions cache's time-to-live must be positive, but was " + ttl);
+		}
+		if(scope == null) {
+			throw new IllegalArgumentException("The suggestions cache's scope can't be null");
+		}
+		if(maxSize <= 0) {
+			throw new IllegalArgumentException("The suggestions cache's size must be positive, but was " + maxSize);
+		}
+		this.suggestionsCacheTtl = ttl;
+		this.suggestionsCacheKey = scope;
+		this.suggestionsCacheSize = maxSize;
+		return this;
+	}
+	
+	/**
+	 * Returns how long cached suggestions are used for
+	 * 
+	 * @return how long cached suggestions are used for, or <code>null</code> if
+	 *         this argument's suggestions aren't cached
+	 */
+	public final Duration getSuggestionsCacheTtl() {
+		return suggestionsCacheTtl;
+	}
+	
+	/**
+	 * Returns what cached suggestions are shared between
+	 * 
+	 * @return what cached suggestions are shared between
+	 */
+	public final CacheKey getSuggestionsCacheKey() {
+		return suggestionsCacheKey;
+	}
+	
+	/**
+	 * Returns the maximum number of entries in this argument's suggestion cache
+	 * 
+	 * @return the maximum number of entries in this argument's suggestion cache
+	 */
+	public final int getSuggestionsCacheSize() {
+		return suggestionsCacheSize;
+	}
+	
+	/**
+	 * Limits the number of suggestions that this argument sends to a player.
+	 * Once this many matching suggestions have been found, the remaining
+	 * suggestions aren't searched. This overrides the global
+	 * <code>max-suggestions</code> setting in the CommandAPI's config.
+	 * 
+	 * @param max the maximum number of suggestions to send, or 0 to use the
+	 *            global limit
+	 * @return the current argument
+	 */
+	public final Argument limitSuggestions(int max) {
+		this.maxSuggestions = max;
+		this.suggestionsRanking = Optional.empty();
 		return this;
 	}
+	
+	/**
+	 * Limits the number of suggestions that this argument sends to a player,
+	 * keeping the best matching suggestions. Suggestions which are ordered first
+	 * by the ranking are kept over suggestions which are ordered later. The
+	 * client always displays suggestions in alphabetical order, so the ranking
+	 * only decides which suggestions are sent.
+	 * 
+	 * @param max     the maximum number of suggestions to send, or 0 to use the
+	 *                global limit
+	 * @param ranking the order that decides which suggestions are kept
+	 * @return the current argument
+	 */
+	public final Argument limitSuggestions(int max, Comparator<IStringTooltip> ranking) {
+		this.maxSuggestions = max;
+		this.suggestionsRanking = Optional.of(ranking);
+		return this;
+	}
+	
+	/**
+	 * Returns the maximum number of suggestions that this argument sends to a
+	 * player
+	 * 
+	 * @return the maximum number of suggestions, or 0 if the global limit is used
+	 */
+	public final int getMaxSuggestions() {
+		return maxSuggestions;
+	}
+	
+	/**
+	 * Returns the order that decides which suggestions are kept when there are
+	 * more suggestions than this argument's limit
+	 * 
+	 * @return an Optional containing the ranking of this argument's suggestions
+	 */
+	public final Optional<Comparator<IStringTooltip>> getSuggestionsRanking() {
+		return suggestionsRanking;
+	}
 
 	/**
 	 * Returns an optional function that maps the command sender to an IStringTooltip array of
@@ -206,6 +428,83 @@ public abstract class Argument implements IOverrideableSuggestions {
 	public final Optional<BiFunction<CommandSender, Object[], IStringTooltip[]>> getOverriddenSuggestions() {
 		return suggestions;
 	}
+	
+	/**
+	 * Override the suggestions of this argument with the names of the players
+	 * that are online. The CommandAPI keeps an index of online players which is
+	 * updated as players join and leave, so suggesting them doesn't have to
+	 * search every online player.
+	 * 
+	 * @param filters which online players are suggested to a command sender
+	 * @return the current argument
+	 */
+	public final Argument suggestOnlinePlayers(PlayerNameFilter... filters) {
+		final Set<PlayerNameFilter> filterSet = EnumSet.noneOf(PlayerNameFilter.class);
+		filterSet.addAll(Arrays.asList(filters));
+		this.suggestions = Optional.of((sender, args) -> Bukkit.getOnlinePlayers().stream()
+				.filter(player -> filterSet.stream().allMatch(filter -> filter.test(sender, player)))
+				.map(player -> StringTooltip.none(player.getName()))
+				.toArray(IStringTooltip[]::new));
+		this.asyncSuggestions = Optional.empty();
+		this.staticSuggestions = Optional.empty();
+		this.playerNameSuggestions = Optional.of(filterSet);
+		return this;
+	}
+	
+	/**
+	 * Returns which online players are suggested to a command sender, if this
+	 * argument's suggestions were overridden with
+	 * {@link #suggestOnlinePlayers(PlayerNameFilter...)}
+	 * 
+	 * @return an Optional containing the filters of online players to suggest
+	 */
+	public final Optional<Set<PlayerNameFilter>> getPlayerNameSuggestions() {
+		return playerNameSuggestions;
+	}
+	
+	/**
+	 * Returns the suggestions of this argument, if they were overridden with
+	 * suggestions that never change, such as with
+	 * {@link #overrideSuggestions(String...)}
+	 * 
+	 * @return the suggestions of this argument, or <code>Optional.empty()</code>
+	 *         if they aren't overridden or can change
+	 */
+	public final Optional<IStringTooltip[]> getStaticSuggestions() {
+		return staticSuggestions;
+	}
+	
+	/**
+	 * Returns an optional function that maps the command sender to a future
+	 * IStringTooltip array of suggestions for the current command
+	 * 
+	 * @return a function that provides suggestions asynchronously, or
+	 *         <code>Optional.empty()</code> if there are no asynchronously
+	 *         overridden suggestions.
+	 */
+	public final Optional<BiFunction<CommandSender, Object[], CompletableFuture<IStringTooltip[]>>> getOverriddenSuggestionsAsync() {
+		return asyncSuggestions;
+	}
+	
+	/**
+	 * Returns the time that asynchronous suggestions have to complete before the
+	 * fallback suggestions are used instead
+	 * 
+	 * @return the timeout for asynchronous suggestions
+	 */
+	public final Duration getAsyncSuggestionsTimeout() {
+		return asyncSuggestionsTimeout;
+	}
+	
+	/**
+	 * Returns whether asynchronous suggestions which time out fall back to the
+	 * last suggestions computed for the same sender
+	 * 
+	 * @return true if stale suggestions are used when asynchronous suggestions time out
+	 */
+	public final boolean usesStaleAsyncSuggestions() {
+		return asyncSuggestionsStale;
+	}
 
 	/////////////////
 	// Permissions //
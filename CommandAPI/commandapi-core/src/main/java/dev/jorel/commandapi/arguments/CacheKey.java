@@ -0,0 +1,23 @@
+package dev.jorel.commandapi.arguments;
+
+/**
+ * An enum representing what cached suggestions are shared between, used by
+ * {@link Argument#cacheSuggestions(java.time.Duration, CacheKey)}
+ */
+public enum CacheKey {
+	/**
+	 * Suggestions are computed once and shared between every command sender
+	 */
+	GLOBAL,
+
+	/**
+	 * Suggestions are computed once for each command sender
+	 */
+	SENDER,
+
+	/**
+	 * Suggestions are computed once for each command sender and set of
+	 * previously declared arguments
+	 */
+	SENDER_AND_ARGUMENTS;
+}
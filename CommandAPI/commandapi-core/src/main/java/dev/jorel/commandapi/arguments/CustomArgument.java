@@ -1,5 +1,7 @@
 package dev.jorel.commandapi.arguments;
 
+import java.time.Duration;
+
 import com.mojang.brigadier.LiteralMessage;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
@@ -17,6 +19,13 @@ public class CustomArgument<T> extends Argument {
 	
 	private CustomArgumentParser<T> parser;
 	private boolean keyed;
+	private Duration parsedValuesTtl = null;
+	
+	/**
+	 * The maximum number of inputs whose parsed values are remembered by a
+	 * custom argument
+	 */
+	public static final int PARSED_VALUES_CACHE_SIZE = 256;
 	
 	/**
 	 * Creates a CustomArgument with a valid parser, defaults to non-keyed argument
@@ -56,6 +65,33 @@ public class CustomArgument<T> extends Argument {
 		return this.keyed;
 	}
 
+	/**
+	 * Remembers the value that this argument's parser returns for each input,
+	 * so the parser only runs once for the same input. Without this, the parser
+	 * runs every time the command is run, and every time suggestions are
+	 * requested for an argument after this one. This should only be used if the
+	 * parser's result only depends on its input. At most
+	 * {@link #PARSED_VALUES_CACHE_SIZE} inputs are remembered, and inputs which
+	 * fail to parse aren't remembered.
+	 * 
+	 * @param ttl how long a parsed value is remembered for
+	 * @return the current argument
+	 */
+	public CustomArgument<T> cacheParsedValues(Duration ttl) {
+		this.parsedValuesTtl = ttl;
+		return this;
+	}
+	
+	/**
+	 * Returns how long a parsed value is remembered for
+	 * 
+	 * @return how long a parsed value is remembered for, or <code>null</code> if
+	 *         parsed values aren't remembered
+	 */
+	public Duration getParsedValuesTtl() {
+		return this.parsedValuesTtl;
+	}
+
 	@Override
 	public Class<T> getPrimitiveType() {
 		return null;
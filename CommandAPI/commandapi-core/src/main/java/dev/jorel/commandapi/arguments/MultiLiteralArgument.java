@@ -14,7 +14,8 @@ public class MultiLiteralArgument extends Argument {
 	 * @param literals the literals that this argument represents
 	 */
 	public MultiLiteralArgument(final String... literals) {
-		super(null, null);
+		// The node name is only used to refer to this argument, since each literal is its own node
+		super(literals == null ? null : String.join("|", literals), null);
 		if(literals == null) {
 			throw new BadLiteralException(true);
 		}
@@ -0,0 +1,60 @@
+package dev.jorel.commandapi.arguments;
+
+import org.bukkit.World;
+import org.bukkit.command.BlockCommandSender;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ProxiedCommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+/**
+ * An enum representing which online players are suggested to a command
+ * sender, used by {@link Argument#suggestOnlinePlayers(PlayerNameFilter...)}
+ */
+public enum PlayerNameFilter {
+	/**
+	 * Only suggests players that the command sender can see, if the command
+	 * sender is a player
+	 */
+	VISIBLE {
+		@Override
+		public boolean test(CommandSender sender, Player player) {
+			sender = callee(sender);
+			return !(sender instanceof Player) || ((Player) sender).canSee(player);
+		}
+	},
+
+	/**
+	 * Only suggests players in the same world as the command sender, if the
+	 * command sender is in a world
+	 */
+	SAME_WORLD {
+		@Override
+		public boolean test(CommandSender sender, Player player) {
+			sender = callee(sender);
+			World world;
+			if(sender instanceof Entity) {
+				world = ((Entity) sender).getWorld();
+			} else if(sender instanceof BlockCommandSender) {
+				world = ((BlockCommandSender) sender).getBlock().getWorld();
+			} else {
+				return true;
+			}
+			return player.getWorld().equals(world);
+		}
+	};
+
+	/**
+	 * Returns whether a player should be suggested to a command sender
+	 * 
+	 * @param sender the command sender that is requesting suggestions
+	 * @param player the online player
+	 * @return true if the player should be suggested
+	 */
+	public abstract boolean test(CommandSender sender, Player player);
+
+	// Commands run with /execute as are run by the proxied entity
+	private static CommandSender callee(CommandSender sender) {
+		return sender instanceof ProxiedCommandSender ? ((ProxiedCommandSender) sender).getCallee() : sender;
+	}
+}
@@ -2,6 +2,9 @@ package dev.jorel.commandapi.arguments;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -11,6 +14,7 @@ import org.bukkit.command.CommandSender;
 import com.mojang.brigadier.arguments.ArgumentType;
 
 import dev.jorel.commandapi.IStringTooltip;
+import dev.jorel.commandapi.StringTooltip;
 import dev.jorel.commandapi.Tooltip;
 
 /**
@@ -19,11 +23,33 @@ import dev.jorel.commandapi.Tooltip;
 public abstract class SafeOverrideableArgument<S> extends Argument {
 	
 	private final Function<S, String> mapper;
+	private Map<S, String> mappedSuggestions = null;
 
 	protected SafeOverrideableArgument(String nodeName, ArgumentType<?> rawType, Function<S, String> mapper) {
 		super(nodeName, rawType);
 		this.mapper = mapper;
 	}
+	
+	/**
+	 * Declares that the objects suggested by this argument's suggestion functions
+	 * always map to the same suggestion, so each object only has to be mapped
+	 * once and its mapped suggestion is reused whenever it is suggested again.
+	 * Objects are held weakly, so they can still be garbage collected. Suggestions
+	 * which never change are always mapped once, so this only affects
+	 * suggestions which are provided by a function.
+	 * 
+	 * @return the current argument
+	 */
+	public final SafeOverrideableArgument<S> cacheMappedSuggestions() {
+		this.mappedSuggestions = Collections.synchronizedMap(new WeakHashMap<>());
+		return this;
+	}
+	
+	// Maps a suggestion from a suggestion function, reusing its mapped suggestion if it's cacheable
+	private String mapSuggestion(S suggestion) {
+		Map<S, String> cache = this.mappedSuggestions;
+		return cache == null ? mapper.apply(suggestion) : cache.computeIfAbsent(suggestion, mapper);
+	}
 
 	/**
 	 * Override the suggestions of this argument with a custom array.
@@ -33,7 +59,7 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 */
 	@SuppressWarnings("unchecked")
 	public final Argument safeOverrideSuggestions(S... suggestions) {
-		return super.overrideSuggestions(sMap0(mapper, suggestions));
+		return super.overrideStaticSuggestions(sMap0(mapper, suggestions));
 	}
 	
 	/**
@@ -44,7 +70,7 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 */
 	@SuppressWarnings("unchecked")
 	public final Argument safeOverrideSuggestions(Collection<S> suggestions) {
-		return super.overrideSuggestions(sMap0(mapper, suggestions.toArray((S[]) new Object[0])));
+		return super.overrideStaticSuggestions(sMap0(mapper, suggestions.toArray((S[]) new Object[0])));
 	} 
 
 	/**
@@ -55,7 +81,7 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 * @return the current argument
 	 */
 	public final Argument safeOverrideSuggestions(Function<CommandSender, S[]> suggestions) {
-		return super.overrideSuggestions(sMap1(mapper, suggestions));
+		return super.overrideSuggestions(sMap1(this::mapSuggestion, suggestions));
 	}
 	
 	/**
@@ -66,7 +92,7 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 * @return the current argument
 	 */
 	public final Argument safeOverrideSuggestions(BiFunction<CommandSender, Object[], S[]> suggestions) {
-		return super.overrideSuggestions(sMap2(mapper, suggestions));
+		return super.overrideSuggestions(sMap2(this::mapSuggestion, suggestions));
 	}
 	
 	/**
@@ -78,7 +104,7 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 */
 	@SafeVarargs
 	public final Argument safeOverrideSuggestionsT(Tooltip<S>... suggestions) {
-		return super.overrideSuggestionsT(tMap0(mapper, suggestions));
+		return super.overrideStaticSuggestions(tMap0(mapper, suggestions));
 	};
 	
 	/**
@@ -90,7 +116,7 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 */
 	@SuppressWarnings("unchecked")
 	public final Argument safeOverrideSuggestionsT(Collection<Tooltip<S>> suggestions) {
-		return super.overrideSuggestionsT(tMap0(mapper, suggestions.toArray(new Tooltip[0])));
+		return super.overrideStaticSuggestions(tMap0(mapper, suggestions.toArray(new Tooltip[0])));
 	};
 	
 	/**
@@ -102,7 +128,7 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 * @return the current argument
 	 */
 	public final Argument safeOverrideSuggestionsT(Function<CommandSender, Tooltip<S>[]> suggestions) {
-		return super.overrideSuggestionsT(tMap1(mapper, suggestions));
+		return super.overrideSuggestionsT(tMap1(this::mapSuggestion, suggestions));
 	}
 	
 	/**
@@ -114,7 +140,7 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 * @return the current argument
 	 */
 	public final Argument safeOverrideSuggestionsT(BiFunction<CommandSender, Object[], Tooltip<S>[]> suggestions) {
-		return super.overrideSuggestionsT(tMap2(mapper, suggestions));
+		return super.overrideSuggestionsT(tMap2(this::mapSuggestion, suggestions));
 	}
 	
 	/**
@@ -129,15 +155,16 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	/**
 	 * Safely overrides the suggestions of this argument with a custom array.
 	 * Arguments of type S are guaranteed to succeed in commands if and only if the
-	 * mapping function does not fail.
+	 * mapping function does not fail. Since the suggestions never change, they
+	 * are mapped once, rather than every time suggestions are requested.
 	 * 
 	 * @param mapper      the mapping function from S to a String
 	 * @param suggestions a S[] of objects to suggest to the command sender
 	 * @return the current argument
 	 */
 	@SafeVarargs
-	private final BiFunction<CommandSender, Object[], String[]> sMap0(Function<S, String> mapper, S... suggestions) {
-		return (c, m) -> Arrays.stream(suggestions).map(mapper).toArray(String[]::new);
+	private final IStringTooltip[] sMap0(Function<S, String> mapper, S... suggestions) {
+		return Arrays.stream(suggestions).map(mapper).map(StringTooltip::none).toArray(IStringTooltip[]::new);
 	}
 	
 	/**
@@ -174,8 +201,8 @@ public abstract class SafeOverrideableArgument<S> extends Argument {
 	 * @see SafeOverrideableArgument#sMap0(Function, Object...)
 	 */
 	@SafeVarargs
-	private final BiFunction<CommandSender, Object[], IStringTooltip[]> tMap0(Function<S, String> mapper, Tooltip<S>... suggestions) {
-		return (c, m) -> Arrays.stream(suggestions).map(Tooltip.build(mapper)).toArray(IStringTooltip[]::new);
+	private final IStringTooltip[] tMap0(Function<S, String> mapper, Tooltip<S>... suggestions) {
+		return Arrays.stream(suggestions).map(Tooltip.build(mapper)).toArray(IStringTooltip[]::new);
 	}
 	
 	/**
@@ -0,0 +1,32 @@
+package dev.jorel.commandapi.executors;
+
+import org.bukkit.command.CommandSender;
+
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * The interface for command executors which are run off the server thread.
+ * When the CommandAPI runs one of these executors, its arguments are parsed on
+ * the server thread and the executor is then run on the CommandAPI's async
+ * executor service. The command returns immediately, and the result of the
+ * executor is delivered once it completes.
+ * @param <T> the commandsender
+ */
+public interface IExecutorAsync<T extends CommandSender> extends IExecutorResulting<T> {
+	
+	/**
+	 * Executes the command executor on the current thread with the provided
+	 * command sender and the provided arguments.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command
+	 * @return the value returned by this command if the command succeeds, 0 if the command fails
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	default int executeWith(CommandSender sender, Object[] args) throws WrapperCommandSyntaxException {
+		// The executor is only chosen for senders that match its type
+		return this.run((T) sender, args);
+	}
+	
+}
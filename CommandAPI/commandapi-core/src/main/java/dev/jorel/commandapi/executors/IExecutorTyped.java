@@ -2,6 +2,7 @@ package dev.jorel.commandapi.executors;
 
 import org.bukkit.command.CommandSender;
 
+import dev.jorel.commandapi.CommandArguments;
 import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
 
 /**
@@ -27,5 +28,18 @@ public interface IExecutorTyped {
 	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
 	 */
 	int executeWith(CommandSender sender, Object[] args) throws WrapperCommandSyntaxException;
+	
+	/**
+	 * Executes the command executor with the provided command sender and the
+	 * provided arguments. By default, every argument is parsed before the command
+	 * executor is run.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command
+	 * @return the value returned by this command if the command succeeds, 0 if the command fails
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	default int executeWith(CommandSender sender, CommandArguments args) throws WrapperCommandSyntaxException {
+		return executeWith(sender, args.toArray());
+	}
 
 }
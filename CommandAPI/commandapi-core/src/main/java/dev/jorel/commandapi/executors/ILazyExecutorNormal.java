@@ -0,0 +1,60 @@
+package dev.jorel.commandapi.executors;
+
+import org.bukkit.command.CommandSender;
+
+import dev.jorel.commandapi.CommandArguments;
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * The interface for normal command executors which parse their arguments lazily
+ * @param <T> the commandsender
+ */
+public interface ILazyExecutorNormal<T extends CommandSender> extends IExecutorNormal<T> {
+	
+	/**
+	 * Executes the command executor with the provided command sender and the provided arguments.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command
+	 * @return 1 if the command succeeds, 0 if the command fails
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	@Override
+	default int executeWith(CommandSender sender, Object[] args) throws WrapperCommandSyntaxException {
+		return executeWith(sender, CommandArguments.of(args));
+	}
+	
+	/**
+	 * Executes the command executor with the provided command sender and the provided arguments.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command, which are parsed when they are read
+	 * @return 1 if the command succeeds, 0 if the command fails
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	default int executeWith(CommandSender sender, CommandArguments args) throws WrapperCommandSyntaxException {
+		// The executor is only chosen for senders that match its type
+		this.run((T) sender, args);
+		return 1;
+	}
+	
+	/**
+	 * Executes the command with arguments which have already been parsed.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	@Override
+	default void run(T sender, Object[] args) throws WrapperCommandSyntaxException {
+		this.run(sender, CommandArguments.of(args));
+	}
+	
+	/**
+	 * Executes the command.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command, which are parsed when they are read
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	void run(T sender, CommandArguments args) throws WrapperCommandSyntaxException;
+
+}
@@ -0,0 +1,61 @@
+package dev.jorel.commandapi.executors;
+
+import org.bukkit.command.CommandSender;
+
+import dev.jorel.commandapi.CommandArguments;
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * The interface for resulting command executors which parse their arguments lazily
+ * @param <T> the commandsender
+ */
+public interface ILazyExecutorResulting<T extends CommandSender> extends IExecutorResulting<T> {
+	
+	/**
+	 * Executes the command executor with the provided command sender and the provided arguments.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command
+	 * @return the value returned by this command if the command succeeds, 0 if the command fails
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	@Override
+	default int executeWith(CommandSender sender, Object[] args) throws WrapperCommandSyntaxException {
+		return executeWith(sender, CommandArguments.of(args));
+	}
+	
+	/**
+	 * Executes the command executor with the provided command sender and the provided arguments.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command, which are parsed when they are read
+	 * @return the value returned by this command if the command succeeds, 0 if the command fails
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	default int executeWith(CommandSender sender, CommandArguments args) throws WrapperCommandSyntaxException {
+		// The executor is only chosen for senders that match its type
+		return this.run((T) sender, args);
+	}
+	
+	/**
+	 * Executes the command with arguments which have already been parsed.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command
+	 * @return the value returned by this command
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	@Override
+	default int run(T sender, Object[] args) throws WrapperCommandSyntaxException {
+		return this.run(sender, CommandArguments.of(args));
+	}
+
+	/**
+	 * Executes the command.
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command, which are parsed when they are read
+	 * @return the value returned by this command
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	int run(T sender, CommandArguments args) throws WrapperCommandSyntaxException;
+	
+}
@@ -0,0 +1,30 @@
+package dev.jorel.commandapi.executors;
+
+import org.bukkit.command.ConsoleCommandSender;
+
+import dev.jorel.commandapi.CommandArguments;
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * A normal command executor for a ConsoleCommandSender, which parses its arguments lazily
+ */
+@FunctionalInterface
+public interface LazyConsoleCommandExecutor extends ILazyExecutorNormal<ConsoleCommandSender> {
+
+	/**
+	 * The code to run when this command is performed
+	 * 
+	 * @param sender
+	 *            The sender of this command (a player, the console etc.)
+	 * @param args
+	 *            The arguments given to this command, in the order that they
+	 *            were declared. Each argument is parsed the first time that it
+	 *            is read
+	 */
+	void run(ConsoleCommandSender sender, CommandArguments args) throws WrapperCommandSyntaxException;
+
+	@Override
+	default ExecutorType getType() {
+		return ExecutorType.CONSOLE;
+	}
+}
@@ -0,0 +1,31 @@
+package dev.jorel.commandapi.executors;
+
+import org.bukkit.command.ConsoleCommandSender;
+
+import dev.jorel.commandapi.CommandArguments;
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * A resulting command executor for a ConsoleCommandSender, which parses its arguments lazily
+ */
+@FunctionalInterface
+public interface LazyConsoleResultingCommandExecutor extends ILazyExecutorResulting<ConsoleCommandSender> {
+
+	/**
+	 * The code to run when this command is performed
+	 * 
+	 * @param sender
+	 *            The sender of this command (a player, the console etc.)
+	 * @param args
+	 *            The arguments given to this command, in the order that they
+	 *            were declared. Each argument is parsed the first time that it
+	 *            is read
+	 * @return the result of this command
+	 */
+	int run(ConsoleCommandSender sender, CommandArguments args) throws WrapperCommandSyntaxException;
+
+	@Override
+	default ExecutorType getType() {
+		return ExecutorType.CONSOLE;
+	}
+}
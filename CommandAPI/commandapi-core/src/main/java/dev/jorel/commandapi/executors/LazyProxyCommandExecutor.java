@@ -0,0 +1,29 @@
+package dev.jorel.commandapi.executors;
+
+import dev.jorel.commandapi.CommandArguments;
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+import dev.jorel.commandapi.wrappers.NativeProxyCommandSender;
+
+/**
+ * A normal command executor for a NativeProxyCommandSender, which parses its arguments lazily
+ */
+@FunctionalInterface
+public interface LazyProxyCommandExecutor extends ILazyExecutorNormal<NativeProxyCommandSender> {
+
+	/**
+	 * The code to run when this command is performed
+	 * 
+	 * @param sender
+	 *            The sender of this command (a player, the console etc.)
+	 * @param args
+	 *            The arguments given to this command, in the order that they
+	 *            were declared. Each argument is parsed the first time that it
+	 *            is read
+	 */
+	void run(NativeProxyCommandSender sender, CommandArguments args) throws WrapperCommandSyntaxException;
+
+	@Override
+	default ExecutorType getType() {
+		return ExecutorType.PROXY;
+	}
+}
@@ -30,6 +30,7 @@ import org.bukkit.inventory.Recipe;
 import org.bukkit.loot.LootTable;
 import org.bukkit.potion.PotionEffectType;
 
+import com.google.gson.JsonObject;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.ArgumentType;
 import com.mojang.brigadier.context.CommandContext;
@@ -80,6 +81,19 @@ public interface NMS<CommandListenerWrapper> {
 	 */
 	void createDispatcherFile(File file, CommandDispatcher<CommandListenerWrapper> dispatcher) throws IOException;
 
+	/**
+	 * Builds the JSON that {@link #createDispatcherFile(File, CommandDispatcher)}
+	 * writes, without writing it. This walks the dispatcher, so it must be called
+	 * on the server thread
+	 * 
+	 * @param dispatcher The Brigadier CommandDispatcher
+	 * @return The JSON that describes the commands, or null if this version can
+	 *         only write the file directly
+	 */
+	default JsonObject getDispatcherJson(CommandDispatcher<CommandListenerWrapper> dispatcher) {
+		return null;
+	}
+
 	/**
 	 * Retrieve a specific NMS implemented SuggestionProvider
 	 * 
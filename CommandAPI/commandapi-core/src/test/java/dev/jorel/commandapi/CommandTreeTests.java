@@ -0,0 +1,76 @@
+package dev.jorel.commandapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+import dev.jorel.commandapi.arguments.Argument;
+import dev.jorel.commandapi.arguments.LiteralArgument;
+import dev.jorel.commandapi.arguments.MultiLiteralArgument;
+import dev.jorel.commandapi.arguments.StringArgument;
+
+/**
+ * Tests for merging commands into the shared nodes of a command tree against a
+ * plain CommandDispatcher, without Bukkit or NMS. The other command tree tests
+ * build their nodes with the helpers here
+ */
+class CommandTreeTests {
+
+	private static final Object SOURCE = new Object();
+
+	private CommandDispatcher<Object> dispatcher;
+	private CommandTree<Object> tree;
+
+	@BeforeEach
+	void setUp() {
+		dispatcher = new CommandDispatcher<>();
+		tree = new CommandTree<>(dispatcher.getRoot(), CommandTreeTests::getArgumentBuilders);
+	}
+
+	// The same nodes that CommandAPIHandler builds, without the CommandAPI's requirements and suggestions
+	@SuppressWarnings("unchecked")
+	static List<ArgumentBuilder<Object, ?>> getArgumentBuilders(List<Argument> args, Argument arg) {
+		List<ArgumentBuilder<Object, ?>> builders = new ArrayList<>();
+		if (arg instanceof MultiLiteralArgument) {
+			for (String literal : ((MultiLiteralArgument) arg).getLiterals()) {
+				builders.add(LiteralArgumentBuilder.literal(literal));
+			}
+		} else if (arg instanceof LiteralArgument) {
+			builders.add(LiteralArgumentBuilder.literal(((LiteralArgument) arg).getLiteral()));
+		} else {
+			builders.add(RequiredArgumentBuilder.argument(arg.getNodeName(), (ArgumentType<Object>) arg.getRawType()));
+		}
+		return builders;
+	}
+
+	static void register(CommandTree<Object> tree, String name, List<Argument> args, Command<Object> command) {
+		tree.register(tree.withChildren(LiteralArgumentBuilder.literal(name), tree.buildArgumentNodes(args, 0, command),
+				args.isEmpty() ? command : null));
+	}
+
+	@Test
+	void mergingIntoOneLiteralDoesNotLeakIntoTheOthers() throws CommandSyntaxException {
+		register(tree, "cmd", Arrays.asList(new MultiLiteralArgument("a", "b"), new StringArgument("x")), ctx -> 1);
+		register(tree, "cmd", Arrays.asList(new LiteralArgument("a"), new StringArgument("x"), new StringArgument("y")), ctx -> 2);
+
+		assertEquals(1, dispatcher.execute("cmd a foo", SOURCE));
+		assertEquals(2, dispatcher.execute("cmd a foo bar", SOURCE));
+		assertEquals(1, dispatcher.execute("cmd b foo", SOURCE));
+		assertThrows(CommandSyntaxException.class, () -> dispatcher.execute("cmd b foo bar", SOURCE));
+	}
+
+}
@@ -0,0 +1,50 @@
+package dev.jorel.commandapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the cache behind cached suggestions
+ */
+class ExpiringLruCacheTests {
+
+	@Test
+	void concurrentMissesComputeTheValueOnce() throws InterruptedException {
+		ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(TimeUnit.MINUTES.toNanos(1), 16);
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 8; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				cache.computeIfAbsent("key", key -> computations.incrementAndGet());
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		assertEquals(1, computations.get());
+		assertEquals(1, cache.get("key"));
+	}
+
+	@Test
+	void expiredValuesAreComputedAgain() {
+		ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(0, 16);
+		assertEquals(1, cache.computeIfAbsent("key", key -> 1));
+		assertEquals(2, cache.computeIfAbsent("key", key -> 2));
+	}
+
+}
@@ -0,0 +1,73 @@
+package dev.jorel.commandapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+import dev.jorel.commandapi.arguments.MultiLiteralArgument;
+import dev.jorel.commandapi.arguments.StringArgument;
+
+/**
+ * Tests that the literal of a MultiLiteralArgument that was used can be read
+ * from the shared nodes after it, however the command was run
+ */
+class MultiLiteralArgumentTests {
+
+	private static final Object SOURCE = new Object();
+
+	private CommandDispatcher<Object> dispatcher;
+	private AtomicReference<Object> literal;
+
+	@BeforeEach
+	void setUp() {
+		dispatcher = new CommandDispatcher<>();
+		literal = new AtomicReference<>();
+
+		MultiLiteralArgument mode = new MultiLiteralArgument("a", "b");
+		ArgumentExtractor<Object> extractor = CommandAPIHandler.compileMultiLiteral(1, mode);
+		Command<Object> command = ctx -> {
+			literal.set(extractor.extract(ctx));
+			return 1;
+		};
+
+		CommandTree<Object> tree = new CommandTree<>(dispatcher.getRoot(), CommandTreeTests::getArgumentBuilders);
+		CommandTreeTests.register(tree, "cmd", Arrays.asList(mode, new StringArgument("x")), command);
+		dispatcher.register(LiteralArgumentBuilder.literal("alias").redirect(dispatcher.getRoot().getChild("cmd")));
+		dispatcher.register(LiteralArgumentBuilder.literal("execute")
+				.then(LiteralArgumentBuilder.literal("run").redirect(dispatcher.getRoot())));
+	}
+
+	@Test
+	void readsTheLiteralThatWasUsed() throws CommandSyntaxException {
+		dispatcher.execute("cmd a foo", SOURCE);
+		assertEquals("a", literal.get());
+		dispatcher.execute("cmd b foo", SOURCE);
+		assertEquals("b", literal.get());
+	}
+
+	@Test
+	void readsTheLiteralThroughAnAliasRedirect() throws CommandSyntaxException {
+		dispatcher.execute("alias b foo", SOURCE);
+		assertEquals("b", literal.get());
+		dispatcher.execute("alias a foo", SOURCE);
+		assertEquals("a", literal.get());
+	}
+
+	@Test
+	void readsTheLiteralThroughExecuteRun() throws CommandSyntaxException {
+		dispatcher.execute("execute run cmd b foo", SOURCE);
+		assertEquals("b", literal.get());
+		dispatcher.execute("execute run alias a foo", SOURCE);
+		assertEquals("a", literal.get());
+	}
+
+}
@@ -0,0 +1,50 @@
+package dev.jorel.commandapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+
+import dev.jorel.commandapi.arguments.LiteralArgument;
+
+/**
+ * Tests for merging a command into a command that redirects to another,
+ * against a plain CommandDispatcher
+ */
+class RedirectMergeTests {
+
+	private static final Object SOURCE = new Object();
+
+	private CommandDispatcher<Object> dispatcher;
+	private CommandTree<Object> tree;
+
+	@BeforeEach
+	void setUp() {
+		dispatcher = new CommandDispatcher<>();
+		tree = new CommandTree<>(dispatcher.getRoot(), CommandTreeTests::getArgumentBuilders);
+	}
+
+	@Test
+	void mergingIntoARedirectKeepsTheRedirectedCommand() throws CommandSyntaxException {
+		LiteralCommandNode<Object> target = dispatcher.register(LiteralArgumentBuilder.literal("target")
+				.then(RequiredArgumentBuilder.argument("n", IntegerArgumentType.integer()).executes(ctx -> 1)));
+		dispatcher.register(LiteralArgumentBuilder.literal("alias").redirect(target));
+
+		CommandTreeTests.register(tree, "alias", Arrays.asList(new LiteralArgument("extra")), ctx -> 2);
+
+		assertEquals(1, dispatcher.execute("alias 5", SOURCE));
+		assertEquals(2, dispatcher.execute("alias extra", SOURCE));
+		assertThrows(CommandSyntaxException.class, () -> dispatcher.execute("target extra", SOURCE));
+	}
+
+}
@@ -0,0 +1,101 @@
+package dev.jorel.commandapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.jorel.commandapi.arguments.IntegerArgument;
+import dev.jorel.commandapi.arguments.LiteralArgument;
+import dev.jorel.commandapi.arguments.MultiLiteralArgument;
+import dev.jorel.commandapi.arguments.StringArgument;
+
+/**
+ * Tests for the conflict checks between registered commands
+ */
+class RegisteredCommandTrieTests {
+
+	private RegisteredCommandTrie trie;
+
+	@BeforeEach
+	void setUp() {
+		trie = new RegisteredCommandTrie();
+		trie.insert("race", Arrays.asList(new LiteralArgument("invite"), new IntegerArgument("player")));
+	}
+
+	@Test
+	void sameNameAndPositionWithADifferentTypeConflicts() {
+		RegisteredCommandTrie.Node conflict = trie.findConflict("race", Arrays.asList(new LiteralArgument("invite"), new StringArgument("player")));
+		assertNotNull(conflict);
+		assertEquals("race invite<LiteralArgument> player<IntegerArgument> ", conflict.describe());
+	}
+
+	@Test
+	void sameTypesDoNotConflict() {
+		assertNull(trie.findConflict("race", Arrays.asList(new LiteralArgument("invite"), new IntegerArgument("player"),
+				new StringArgument("message"))));
+	}
+
+	@Test
+	void differentPathsDoNotConflict() {
+		assertNull(trie.findConflict("race", Arrays.asList(new LiteralArgument("kick"), new StringArgument("player"))));
+		assertNull(trie.findConflict("race", Arrays.asList(new LiteralArgument("invite"), new StringArgument("team"))));
+		assertNull(trie.findConflict("party", Arrays.asList(new LiteralArgument("invite"), new StringArgument("player"))));
+	}
+
+	@Test
+	void literalsConflictWithArgumentsOfTheSameName() {
+		assertNotNull(trie.findConflict("race", Arrays.asList(new StringArgument("invite"))));
+	}
+
+	@Test
+	void everyLiteralOfAMultiLiteralArgumentIsChecked() {
+		trie.insert("mode", Arrays.asList(new MultiLiteralArgument("a", "b"), new IntegerArgument("x")));
+
+		assertNotNull(trie.findConflict("mode", Arrays.asList(new LiteralArgument("b"), new StringArgument("x"))));
+		assertNull(trie.findConflict("mode", Arrays.asList(new LiteralArgument("c"), new StringArgument("x"))));
+		assertNull(trie.findConflict("mode", Arrays.asList(new MultiLiteralArgument("b", "a"), new IntegerArgument("x"))));
+	}
+
+	@Test
+	void removedCommandsDoNotConflict() {
+		trie.remove("race");
+		assertNull(trie.findConflict("race", Arrays.asList(new LiteralArgument("invite"), new StringArgument("player"))));
+	}
+
+	@Test
+	void rolledBackRegistrationsDoNotConflict() {
+		trie.begin();
+		trie.insert("race", Arrays.asList(new LiteralArgument("invite"), new IntegerArgument("player"), new IntegerArgument("team")));
+		trie.insert("race", Arrays.asList(new LiteralArgument("kick"), new IntegerArgument("player")));
+		trie.rollback();
+
+		assertNull(trie.findConflict("race", Arrays.asList(new LiteralArgument("invite"), new IntegerArgument("player"),
+				new StringArgument("team"))));
+		assertNull(trie.findConflict("race", Arrays.asList(new LiteralArgument("kick"), new StringArgument("player"))));
+		// The path that was registered before is kept
+		assertNotNull(trie.findConflict("race", Arrays.asList(new LiteralArgument("invite"), new StringArgument("player"))));
+	}
+
+	@Test
+	void onlyTheOutermostRegistrationCommits() {
+		trie.begin();
+		trie.begin();
+		trie.insert("mode", Arrays.asList(new MultiLiteralArgument("a", "b"), new IntegerArgument("x")));
+		trie.commit();
+		trie.rollback();
+
+		assertNull(trie.findConflict("mode", Arrays.asList(new LiteralArgument("a"), new StringArgument("x"))));
+
+		trie.begin();
+		trie.insert("mode", Arrays.asList(new LiteralArgument("a"), new IntegerArgument("x")));
+		trie.commit();
+
+		assertNotNull(trie.findConflict("mode", Arrays.asList(new LiteralArgument("a"), new StringArgument("x"))));
+	}
+
+}
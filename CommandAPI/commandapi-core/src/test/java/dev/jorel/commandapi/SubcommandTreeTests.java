@@ -0,0 +1,123 @@
+package dev.jorel.commandapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+
+import dev.jorel.commandapi.arguments.Argument;
+import dev.jorel.commandapi.arguments.IntegerArgument;
+import dev.jorel.commandapi.arguments.MultiLiteralArgument;
+import dev.jorel.commandapi.arguments.StringArgument;
+import dev.jorel.commandapi.executors.CommandExecutor;
+
+/**
+ * Tests for registering a command's subcommands as one tree, against a plain
+ * CommandDispatcher
+ */
+class SubcommandTreeTests {
+
+	private static final Object SOURCE = new Object();
+
+	private CommandDispatcher<Object> dispatcher;
+	private CommandTree<Object> tree;
+
+	@BeforeEach
+	void setUp() {
+		dispatcher = new CommandDispatcher<>();
+		tree = new CommandTree<>(dispatcher.getRoot(), CommandTreeTests::getArgumentBuilders);
+	}
+
+	@Test
+	void subcommandTreesMatchFlattenedSubcommands() throws Exception {
+		CommandExecutor executor = (sender, args) -> {};
+		CommandAPICommand command = new CommandAPICommand("root")
+			.withSubcommand(new CommandAPICommand("sub")
+				.withAliases("s")
+				.withArguments(new IntegerArgument("n"))
+				.executes(executor)
+				.withSubcommand(new CommandAPICommand("subsub")
+					.executes(executor)
+					.withSubcommand(new CommandAPICommand("deep")
+						.withArguments(new StringArgument("word"))
+						.executes(executor))))
+			.withSubcommand(new CommandAPICommand("group")
+				.withSubcommand(new CommandAPICommand("leaf")
+					.withArguments(new IntegerArgument("m"))
+					.executes(executor))
+				.withSubcommand(new CommandAPICommand("empty")));
+
+		List<List<Argument>> expected = new ArrayList<>();
+		for (CommandAPICommand subcommand : command.getSubcommands()) {
+			flatten(expected, new ArrayList<>(), subcommand);
+		}
+
+		List<List<Argument>> prepared = new ArrayList<>();
+		List<CommandNode<Object>> children = new ArrayList<>();
+		for (CommandAPICommand subcommand : command.getSubcommands()) {
+			children.addAll(tree.buildSubcommandNodes(command, new ArrayList<>(), subcommand, (args, branchExecutor) -> {
+				prepared.add(args);
+				return ctx -> 1;
+			}));
+		}
+		LiteralCommandNode<Object> root = tree.register(tree.withChildren(LiteralArgumentBuilder.literal("root"), children, null));
+
+		assertEquals(describe(expected), describe(prepared));
+		assertEquals(usages(expected), new HashSet<>(Arrays.asList(dispatcher.getAllUsage(root, SOURCE, false))));
+	}
+
+	// How CommandAPICommand used to expand subcommands: a subcommand with an executor adds its arguments to the path of its subcommands
+	private static void flatten(List<List<Argument>> branches, List<Argument> prevArguments, CommandAPICommand subcommand) {
+		prevArguments.add(CommandTree.toLiteral(subcommand));
+		if (!subcommand.getExecutor().isEmpty()) {
+			prevArguments.addAll(subcommand.getArguments());
+			branches.add(new ArrayList<>(prevArguments));
+		}
+		for (CommandAPICommand subsubcommand : subcommand.getSubcommands()) {
+			flatten(branches, new ArrayList<>(prevArguments), subsubcommand);
+		}
+	}
+
+	private static List<String> describe(List<List<Argument>> branches) {
+		return branches.stream()
+			.map(args -> args.stream().map(Argument::getNodeName).collect(Collectors.joining(" ")))
+			.collect(Collectors.toList());
+	}
+
+	// Every usage of each branch, with a usage for each literal of a MultiLiteralArgument
+	private static Set<String> usages(List<List<Argument>> branches) {
+		Set<String> usages = new HashSet<>();
+		for (List<Argument> args : branches) {
+			List<String> prefixes = Arrays.asList("");
+			for (Argument arg : args) {
+				List<String> next = new ArrayList<>();
+				for (String prefix : prefixes) {
+					String separator = prefix.isEmpty() ? "" : " ";
+					if (arg instanceof MultiLiteralArgument) {
+						for (String literal : ((MultiLiteralArgument) arg).getLiterals()) {
+							next.add(prefix + separator + literal);
+						}
+					} else {
+						next.add(prefix + separator + "<" + arg.getNodeName() + ">");
+					}
+				}
+				prefixes = next;
+			}
+			usages.addAll(prefixes);
+		}
+		return usages;
+	}
+
+}